@@ -0,0 +1,133 @@
+import java.util.Arrays;
+import java.util.List;
+
+// 活动区域 - 按离最近玩家的区块距离(切比雪夫距离, 区块见 TileMap.CHUNK)决定实体的模拟精度:
+//   FULL   完整模拟: 每tick更新、寻路、开火、碰撞
+//   CHEAP  简化模拟: 每 CHEAP_INTERVAL 个tick更新一次, 一次走完这段路, 不开火
+//   FROZEN 冻结: 不更新, 玩家回来时从原处继续
+// 等级只取决于玩家位置, 和模拟本身一样是确定的. 每tick开始时更新一次, 之后只读, 并行更新敌人时可以同时查询
+// 另外记下每个玩家的屏幕范围(与 Camera 一样以玩家为中心), 屏幕外的敌人AI决策得少一些(见 AiScheduler)
+// 世界只有一屏大时所有区块都是 FULL, 模拟与没有区块划分时完全相同
+class ActiveRegion {
+    static final int FULL = 0;
+    static final int CHEAP = 1;
+    static final int FROZEN = 2;
+
+    // 简化模拟的敌人每隔这么多tick才更新一次, 按 id 错开, 不会挤在同一个tick
+    static final int CHEAP_INTERVAL = 8;
+
+    private final int fullRadius = GameConfig.ACTIVE_CHUNKS;
+    private final int cheapRadius = GameConfig.CHEAP_CHUNKS;
+
+    // 各玩家所在的区块
+    private int[] playerChunkX = new int[1];
+    private int[] playerChunkY = new int[1];
+    private int playerCount;
+
+    // 各玩家屏幕的左上角(世界像素)
+    private int[] viewX = new int[1];
+    private int[] viewY = new int[1];
+
+    // 完整模拟区域的外接矩形(区块坐标, 含两端)
+    private int minChunkX;
+    private int minChunkY;
+    private int maxChunkX;
+    private int maxChunkY;
+    private boolean coversWorld = true;
+
+    public void update(List<? extends Tank> players) {
+        if (playerChunkX.length < players.size()) {
+            playerChunkX = Arrays.copyOf(playerChunkX, players.size());
+            playerChunkY = Arrays.copyOf(playerChunkY, players.size());
+            viewX = Arrays.copyOf(viewX, players.size());
+            viewY = Arrays.copyOf(viewY, players.size());
+        }
+        playerCount = players.size();
+        minChunkX = Integer.MAX_VALUE;
+        minChunkY = Integer.MAX_VALUE;
+        maxChunkX = Integer.MIN_VALUE;
+        maxChunkY = Integer.MIN_VALUE;
+        coversWorld = true;
+        for (int k = 0; k < playerCount; k++) {
+            Tank player = players.get(k);
+            int cx = chunkOf(player.getX());
+            int cy = chunkOf(player.getY());
+            playerChunkX[k] = cx;
+            playerChunkY[k] = cy;
+            viewX[k] = Math.max(0, Math.min(World.WIDTH - World.VIEW_WIDTH,
+                    player.getX() + player.width / 2 - World.VIEW_WIDTH / 2));
+            viewY[k] = Math.max(0, Math.min(World.HEIGHT - World.VIEW_HEIGHT,
+                    player.getY() + player.height / 2 - World.VIEW_HEIGHT / 2));
+            minChunkX = Math.min(minChunkX, cx - fullRadius);
+            minChunkY = Math.min(minChunkY, cy - fullRadius);
+            maxChunkX = Math.max(maxChunkX, cx + fullRadius);
+            maxChunkY = Math.max(maxChunkY, cy + fullRadius);
+            // 每个玩家单独覆盖整个世界才能说所有区块都完整模拟(外接矩形覆盖不代表每格都近)
+            coversWorld &= cx - fullRadius <= 0 && cy - fullRadius <= 0
+                    && cx + fullRadius >= TileMap.CHUNK_COLS - 1 && cy + fullRadius >= TileMap.CHUNK_ROWS - 1;
+        }
+        minChunkX = Math.max(0, minChunkX);
+        minChunkY = Math.max(0, minChunkY);
+        maxChunkX = Math.min(TileMap.CHUNK_COLS - 1, maxChunkX);
+        maxChunkY = Math.min(TileMap.CHUNK_ROWS - 1, maxChunkY);
+    }
+
+    // 左上角在(x, y)的实体的模拟等级
+    public int levelOf(int x, int y) {
+        if (coversWorld) {
+            return FULL;
+        }
+        int distance = chunkDistance(chunkOf(x), chunkOf(y));
+        if (distance <= fullRadius) {
+            return FULL;
+        }
+        return distance <= cheapRadius ? CHEAP : FROZEN;
+    }
+
+    // 左上角在(x, y)、边长 size 的实体是否有一部分在某个玩家的屏幕内; 世界只有一屏大时总是在
+    public boolean isVisible(int x, int y, int size) {
+        for (int k = 0; k < playerCount; k++) {
+            if (x < viewX[k] + World.VIEW_WIDTH && x + size > viewX[k]
+                    && y < viewY[k] + World.VIEW_HEIGHT && y + size > viewY[k]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 到最近的玩家的区块距离
+    private int chunkDistance(int cx, int cy) {
+        int best = Integer.MAX_VALUE;
+        for (int k = 0; k < playerCount; k++) {
+            int distance = Math.max(Math.abs(cx - playerChunkX[k]), Math.abs(cy - playerChunkY[k]));
+            best = Math.min(best, distance);
+        }
+        return best;
+    }
+
+    private static int chunkOf(int coordinate) {
+        return Math.floorDiv(coordinate, TileMap.CHUNK);
+    }
+
+    // 所有区块都完整模拟(世界不比完整模拟的范围大)
+    public boolean coversWorld() {
+        return coversWorld;
+    }
+
+    // 完整模拟区域的外接矩形(像素), 新敌人在这里生成, 流场也只算这个范围
+    public int getLeft() {
+        return minChunkX * TileMap.CHUNK;
+    }
+
+    public int getTop() {
+        return minChunkY * TileMap.CHUNK;
+    }
+
+    public int getRight() {
+        return Math.min(World.WIDTH, (maxChunkX + 1) * TileMap.CHUNK);
+    }
+
+    public int getBottom() {
+        return Math.min(World.HEIGHT, (maxChunkY + 1) * TileMap.CHUNK);
+    }
+}
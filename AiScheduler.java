@@ -0,0 +1,102 @@
+// 敌人AI调度 - 每tick最多执行 budget 个AI决策(沿流场追踪、随机转向), 到期的决策超出预算时推迟到之后的tick
+// 一批同时生成的敌人计时是对齐的, 以前会在同一个tick一起决策; 现在超出预算的部分摊到后面几个tick, 每tick的AI开销保持平稳
+// 预算按决策个数而不是纳秒计: 按耗时截断会让结果取决于机器快慢, 录像、存档和联机就不再确定
+// 屏幕内的敌人先服务, 屏幕外的用剩下的预算, 而且间隔是屏幕内的 FAR_SCALE 倍(LOD: 看不见的敌人想得少一些);
+// 同一优先级内从上次停下的下标往后轮流, 被推迟的敌人计时保持到期, 下个tick优先轮到
+// 不超预算时与每个敌人计时一到就决策完全相同
+class AiScheduler {
+    static final int FAR_SCALE = 2;
+
+    private int budget;
+
+    // 轮转的起点(敌人下标), 是模拟状态的一部分, 随存档保存
+    private int cursor;
+
+    // 最近一个tick和累计的决策数、推迟数
+    private int decisions;
+    private int deferred;
+    private long totalDecisions;
+    private long totalDeferred;
+
+    public AiScheduler(int budget) {
+        setBudget(budget);
+    }
+
+    public void setBudget(int budget) {
+        this.budget = Math.max(1, budget);
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    // 新的一局
+    public void reset() {
+        cursor = 0;
+        decisions = 0;
+        deferred = 0;
+    }
+
+    // 执行 updater 收集到的到期决策, 在各块计时之后、移动之前调用
+    public void run(EnemyUpdater updater, EnemyPool enemies, FlowField flowField) {
+        int remaining = budget;
+        int due = 0;
+        int start = cursor;
+        for (int near = 1; near >= 0; near--) {
+            int scale = near == 1 ? 1 : FAR_SCALE;
+            // 两遍: 先是起点及之后的下标, 再绕回开头
+            for (int pass = 0; pass < 2; pass++) {
+                for (int c = 0; c < updater.getChunkCount(); c++) {
+                    int[] list = updater.getDue(c, near == 1);
+                    int count = updater.getDueCount(c, near == 1);
+                    for (int k = 0; k < count; k++) {
+                        int i = list[k];
+                        if ((i >= start) != (pass == 0)) {
+                            continue;
+                        }
+                        due++;
+                        if (remaining > 0) {
+                            enemies.decide(i, scale, flowField);
+                            remaining--;
+                            // 预算用完时下个tick从这里之后继续
+                            cursor = i + 1;
+                        }
+                    }
+                }
+            }
+        }
+        decisions = budget - remaining;
+        deferred = due - decisions;
+        totalDecisions += decisions;
+        totalDeferred += deferred;
+        if (deferred == 0) {
+            cursor = start;
+        }
+    }
+
+    public int getCursor() {
+        return cursor;
+    }
+
+    // 读档时恢复
+    public void setCursor(int cursor) {
+        this.cursor = Math.max(0, cursor);
+    }
+
+    public int getDecisions() {
+        return decisions;
+    }
+
+    // 本tick到期但没有执行、推迟到之后的决策数
+    public int getDeferred() {
+        return deferred;
+    }
+
+    public long getTotalDecisions() {
+        return totalDecisions;
+    }
+
+    public long getTotalDeferred() {
+        return totalDeferred;
+    }
+}
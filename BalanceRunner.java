@@ -0,0 +1,355 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// 难度平衡批量模拟 - 无界面地跑成千上万局, 由脚本机器人操纵玩家坦克, 统计每组难度参数下的得分、损失的生命数和一局时长的分布
+// 每局是一个独立的 World(敌人单线程更新), 各局之间不共享可变状态, 交给线程数等于CPU核数的固定线程池;
+// 结果按局号写回各自的位置, 线程数和完成顺序不影响结果. 各组参数使用同一串种子, 比较时排除了运气的差别
+// 一局在玩家生命用完或达到时长上限时结束, 达到上限的局按上限计时长
+// 用法: java BalanceRunner [每组局数] [每局最长秒数]                    三个难度预设
+//       java BalanceRunner search <目标秒数> [每组局数] [每局最长秒数]  搜索一局时长中位数最接近目标的参数
+class BalanceRunner {
+    // 粗搜的网格, 覆盖三个预设两侧
+    private static final int[] SPAWN_RATES = {500, 700, 1000, 1500, 2000};
+    private static final int[] FIRE_RATES = {20, 30, 50, 80, 120};
+    private static final int[] MAX_BULLETS = {1, 2, 3, 5, 8};
+
+    // 粗搜每组只跑 1/COARSE_FRACTION 的局数, 之后用全部局数复核最好的 REFINE 组及其邻近参数
+    private static final int COARSE_FRACTION = 4;
+    private static final int REFINE = 5;
+
+    private final TileMap level;
+    private final long[] seeds;
+    private final int maxTicks;
+    private final ExecutorService executor;
+
+    BalanceRunner(TileMap level, int games, int maxSeconds, ExecutorService executor) {
+        this.level = level;
+        this.maxTicks = maxSeconds * GameConfig.TICK_RATE;
+        this.executor = executor;
+        // 默认用固定种子, 两次运行的结果相同; -Dtank.seed 换一串种子
+        GameRandom random = new GameRandom(Long.getLong("tank.seed", 42));
+        seeds = new long[games];
+        for (int g = 0; g < games; g++) {
+            seeds[g] = random.nextLong();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        boolean search = args.length > 0 && args[0].equals("search");
+        int first = search ? 2 : 0;
+        int targetSeconds = search ? Integer.parseInt(args[1]) : 0;
+        int games = args.length > first ? Integer.parseInt(args[first]) : 1000;
+        int maxSeconds = args.length > first + 1 ? Integer.parseInt(args[first + 1]) : 300;
+        if (search && targetSeconds >= maxSeconds) {
+            System.err.println("目标时长应小于每局最长时长 " + maxSeconds + " 秒");
+            System.exit(1);
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "balance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        BalanceRunner runner = new BalanceRunner(TileMap.load(GameConfig.LEVEL), games, maxSeconds, executor);
+        System.out.printf("关卡 %s, 每组 %d 局, 每局最长 %d 秒, %d 线程%n", GameConfig.LEVEL, games, maxSeconds, threads);
+
+        long start = System.nanoTime();
+        if (search) {
+            runner.search(targetSeconds);
+        } else {
+            for (Difficulty difficulty : Difficulty.values()) {
+                Result result = runner.run(new Params(difficulty.getSpawnRate(), difficulty.getFireRate(),
+                        difficulty.getMaxBullets()), games);
+                System.out.println(String.format("%-6s ", difficulty) + result);
+            }
+        }
+        System.out.printf("用时 %.1f 秒%n", (System.nanoTime() - start) / 1e9);
+        executor.shutdown();
+    }
+
+    // 先在网格上粗搜, 再用全部局数复核最接近目标的几组, 以及其中最好一组每个参数各往两侧挪一格的邻居
+    private void search(int targetSeconds) throws InterruptedException, ExecutionException {
+        List<Result> coarse = new ArrayList<>();
+        for (int spawnRate : SPAWN_RATES) {
+            for (int fireRate : FIRE_RATES) {
+                for (int maxBullets : MAX_BULLETS) {
+                    coarse.add(run(new Params(spawnRate, fireRate, maxBullets),
+                            Math.max(1, seeds.length / COARSE_FRACTION)));
+                }
+            }
+        }
+        sortByDistance(coarse, targetSeconds);
+        System.out.printf("粗搜 %d 组参数, 复核最接近 %d 秒的 %d 组%n", coarse.size(), targetSeconds, REFINE);
+
+        List<Result> refined = new ArrayList<>();
+        List<Params> tried = new ArrayList<>();
+        for (int k = 0; k < Math.min(REFINE, coarse.size()); k++) {
+            tried.add(coarse.get(k).params);
+        }
+        Params best = tried.get(0);
+        for (Params neighbour : best.neighbours()) {
+            if (!tried.contains(neighbour)) {
+                tried.add(neighbour);
+            }
+        }
+        for (Params params : tried) {
+            refined.add(run(params, seeds.length));
+        }
+        sortByDistance(refined, targetSeconds);
+        for (Result result : refined) {
+            System.out.println(result);
+        }
+        System.out.println("最接近目标: " + refined.get(0).params);
+    }
+
+    private void sortByDistance(List<Result> results, int targetSeconds) {
+        long target = (long) targetSeconds * GameConfig.TICK_RATE;
+        results.sort((a, b) -> Long.compare(Math.abs(a.medianLength() - target), Math.abs(b.medianLength() - target)));
+    }
+
+    // 用前 games 个种子各跑一局
+    Result run(Params params, int games) throws InterruptedException, ExecutionException {
+        List<Future<?>> futures = new ArrayList<>(games);
+        long[] scores = new long[games];
+        long[] livesLost = new long[games];
+        long[] lengths = new long[games];
+        for (int g = 0; g < games; g++) {
+            int game = g;
+            futures.add(executor.submit(() -> playGame(params, seeds[game], game, scores, livesLost, lengths)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return new Result(params, scores, livesLost, lengths, maxTicks);
+    }
+
+    private void playGame(Params params, long seed, int game, long[] scores, long[] livesLost, long[] lengths) {
+        World world = new World(seed);
+        world.setUpdateMode(UpdateMode.SEQUENTIAL); // 并行在局之间, 每局内部单线程
+        world.setLevel(level.copy());
+        world.setEnemySpawnRate(params.spawnRate);
+        world.setEnemyFireRate(params.fireRate);
+        world.setMaxEnemyBullets(params.maxBullets);
+        world.start(seed);
+
+        Bot bot = new Bot();
+        int startingLives = world.getLives();
+        while (world.getState() == GameState.PLAYING && world.getTickCount() < maxTicks) {
+            world.step(bot.inputs(world));
+        }
+        scores[game] = world.getScore();
+        livesLost[game] = startingLives - Math.max(0, world.getLives());
+        lengths[game] = world.getTickCount();
+    }
+
+    // 一组难度参数, 含义同 Difficulty
+    static final class Params {
+        final int spawnRate;
+        final int fireRate;
+        final int maxBullets;
+
+        Params(int spawnRate, int fireRate, int maxBullets) {
+            this.spawnRate = spawnRate;
+            this.fireRate = fireRate;
+            this.maxBullets = maxBullets;
+        }
+
+        // 每个参数单独放大或缩小约 1/4 的六组参数
+        List<Params> neighbours() {
+            return Arrays.asList(
+                    new Params(spawnRate * 3 / 4, fireRate, maxBullets),
+                    new Params(spawnRate * 5 / 4, fireRate, maxBullets),
+                    new Params(spawnRate, Math.max(10, fireRate * 3 / 4), maxBullets),
+                    new Params(spawnRate, fireRate * 5 / 4, maxBullets),
+                    new Params(spawnRate, fireRate, Math.max(1, maxBullets - 1)),
+                    new Params(spawnRate, fireRate, maxBullets + 1));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Params)) {
+                return false;
+            }
+            Params other = (Params) o;
+            return spawnRate == other.spawnRate && fireRate == other.fireRate && maxBullets == other.maxBullets;
+        }
+
+        @Override
+        public int hashCode() {
+            return (spawnRate * 31 + fireRate) * 31 + maxBullets;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("生成 %4d ms  开火 %3d  子弹 %d", spawnRate, fireRate, maxBullets);
+        }
+    }
+
+    // 一组参数的各局结果, 按 p10/p50/p90 汇总
+    static final class Result {
+        final Params params;
+        private final SampleRing scores;
+        private final SampleRing livesLost;
+        private final SampleRing lengths;
+        private final int capped; // 打满时长上限的局数
+
+        Result(Params params, long[] scores, long[] livesLost, long[] lengths, int maxTicks) {
+            this.params = params;
+            this.scores = sorted(scores);
+            this.livesLost = sorted(livesLost);
+            this.lengths = sorted(lengths);
+            int count = 0;
+            for (long length : lengths) {
+                if (length >= maxTicks) {
+                    count++;
+                }
+            }
+            capped = count;
+        }
+
+        private static SampleRing sorted(long[] values) {
+            SampleRing ring = new SampleRing(values.length);
+            for (long value : values) {
+                ring.add(value);
+            }
+            ring.sortSamples();
+            return ring;
+        }
+
+        long medianLength() {
+            return lengths.percentile(50);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s | 时长(秒) %s, 打满 %.0f%% | 得分 %s | 损失生命 %s", params,
+                    spread(lengths, GameConfig.TICK_RATE), 100.0 * capped / lengths.size(), spread(scores, 1), spread(livesLost, 1));
+        }
+
+        private static String spread(SampleRing ring, int divisor) {
+            return String.format("%d/%d/%d", ring.percentile(10) / divisor, ring.percentile(50) / divisor,
+                    ring.percentile(90) / divisor);
+        }
+    }
+
+    // 脚本机器人: 有敌人子弹朝自己飞来时横向(或纵向)躲开; 否则左右移动对准最靠下的敌人, 转向它后按冷却开火;
+    // 对准途中和目标保持纵向距离, 离出生点太高时往下退. 只看当前局面和自己的开火冷却, 同样的局面给出同样的输入, 每局都可以按种子重现
+    static final class Bot {
+        private static final int ALIGN = 16;           // 中心偏差在这个像素以内算对准
+        private static final int DODGE_WIDTH = 48;     // 子弹路线离车身中心这么近时要躲
+        private static final int DANGER_RANGE = 600;   // 只理会这个距离以内朝自己飞来的子弹
+        private static final int KEEP_DISTANCE = 150;  // 纵向离目标这么近时边对准边后退
+        private static final int HOME_RANGE = 160;     // 比出生点高出这么多时往回退
+        private static final int FIRE_COOLDOWN = GameConfig.ticks(150);
+
+        private long nextFire;
+
+        int inputs(World world) {
+            PlayerTank player = world.getPlayer();
+            int px = player.getX() + player.width / 2;
+            int py = player.getY() + player.height / 2;
+
+            int dodge = dodge(world.getBullets(), px, py);
+            if (dodge != 0) {
+                return dodge;
+            }
+
+            // 目标是最靠下的敌人, 它最快从底边跑掉
+            EnemyPool enemies = world.getEnemies();
+            int target = -1;
+            for (int i = 0; i < enemies.size(); i++) {
+                if (target < 0 || enemies.getY(i) > enemies.getY(target)) {
+                    target = i;
+                }
+            }
+            int home = player.getY() < player.getSpawnY() - HOME_RANGE ? World.INPUT_DOWN : 0;
+            if (target < 0) {
+                return home;
+            }
+
+            int dx = enemies.getX(target) + EnemyPool.SIZE / 2 - px;
+            int dy = enemies.getY(target) + EnemyPool.SIZE / 2 - py;
+            Direction aim = aim(dx, dy);
+            if (aim == null) {
+                // 对准时和目标保持距离
+                int keep = Math.abs(dy) < KEEP_DISTANCE ? (dy > 0 ? World.INPUT_UP : World.INPUT_DOWN) : home;
+                return (dx > 0 ? World.INPUT_RIGHT : World.INPUT_LEFT) | keep;
+            }
+            if (player.getDirection() != aim) {
+                // 朝目标方向走一个tick就转过去了
+                return keys(aim);
+            }
+            long tick = world.getTickCount();
+            if (tick >= nextFire) {
+                nextFire = tick + FIRE_COOLDOWN;
+                return World.INPUT_FIRE;
+            }
+            return 0;
+        }
+
+        // 有威胁的敌人子弹: 正朝自己飞来, 距离在 DANGER_RANGE 以内, 路线离车身中心不到 DODGE_WIDTH
+        // 竖着飞的往左右躲, 其余的往上下躲, 朝离开子弹路线的一侧
+        private static int dodge(BulletPool bullets, int px, int py) {
+            for (int i = 0; i < bullets.size(); i++) {
+                if (bullets.isPlayerBullet(i)) {
+                    continue;
+                }
+                Direction dir = bullets.getDirection(i);
+                long rx = px - (bullets.getX(i) + BulletPool.SIZE / 2);
+                long ry = py - (bullets.getY(i) + BulletPool.SIZE / 2);
+                long along = rx * dir.getDx() + ry * dir.getDy();
+                long length = dir.getDx() * dir.getDx() + dir.getDy() * dir.getDy();
+                long across = rx * dir.getDy() - ry * dir.getDx();
+                if (along <= 0 || along * along > (long) DANGER_RANGE * DANGER_RANGE * length
+                        || across * across >= (long) DODGE_WIDTH * DODGE_WIDTH * length) {
+                    continue;
+                }
+                if (dir.getDx() == 0) {
+                    return rx >= 0 ? World.INPUT_RIGHT : World.INPUT_LEFT;
+                }
+                return ry >= 0 ? World.INPUT_DOWN : World.INPUT_UP;
+            }
+            return 0;
+        }
+
+        // 目标在8个方向之一的直线上时返回这个方向
+        private static Direction aim(int dx, int dy) {
+            int sx = Math.abs(dx) <= ALIGN ? 0 : Integer.signum(dx);
+            int sy = Math.abs(dy) <= ALIGN ? 0 : Integer.signum(dy);
+            if (sx != 0 && sy != 0 && Math.abs(Math.abs(dx) - Math.abs(dy)) > ALIGN) {
+                return null;
+            }
+            if (sx == 0 && sy == 0) {
+                return null;
+            }
+            for (Direction dir : Direction.values()) {
+                if (dir.getDx() == sx && dir.getDy() == sy) {
+                    return dir;
+                }
+            }
+            return null;
+        }
+
+        private static int keys(Direction dir) {
+            int keys = 0;
+            if (dir.getDy() < 0) {
+                keys |= World.INPUT_UP;
+            } else if (dir.getDy() > 0) {
+                keys |= World.INPUT_DOWN;
+            }
+            if (dir.getDx() > 0) {
+                keys |= World.INPUT_RIGHT;
+            } else if (dir.getDx() < 0) {
+                keys |= World.INPUT_LEFT;
+            }
+            return keys;
+        }
+    }
+}
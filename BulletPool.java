@@ -0,0 +1,168 @@
+import java.util.Arrays;
+
+// 子弹池 - 所有子弹存放在预分配的基本类型数组中(结构数组)
+// 发射时复用空闲槽位, 删除时把最后一颗子弹移到空位(交换弹出), 活跃子弹始终在 [0, count) 内
+class BulletPool {
+    public static final int SPEED = 5; // 100Hz 下每tick飞行的像素, 其他频率按 GameConfig.perTicks 换算
+    public static final int SIZE = 6;
+
+    // 阵营
+    public static final int PLAYER = 0;
+    public static final int ENEMY = 1;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private int[] x;
+    private int[] y;
+    private int[] prevX; // 上一个tick的位置, 用于渲染插值
+    private int[] prevY;
+    private byte[] direction;
+    private byte[] faction;
+    private int count;
+
+    // 各阵营存活子弹数, 发射和删除时维护
+    private final int[] factionCount = new int[2];
+
+    public BulletPool(int capacity) {
+        x = new int[capacity];
+        y = new int[capacity];
+        prevX = new int[capacity];
+        prevY = new int[capacity];
+        direction = new byte[capacity];
+        faction = new byte[capacity];
+    }
+
+    public void spawn(int bulletX, int bulletY, Direction dir, boolean playerBullet) {
+        if (count == x.length) {
+            // 只有超过预分配容量时才扩容, 稳定运行时不会走到这里
+            int newCapacity = count * 2;
+            x = Arrays.copyOf(x, newCapacity);
+            y = Arrays.copyOf(y, newCapacity);
+            prevX = Arrays.copyOf(prevX, newCapacity);
+            prevY = Arrays.copyOf(prevY, newCapacity);
+            direction = Arrays.copyOf(direction, newCapacity);
+            faction = Arrays.copyOf(faction, newCapacity);
+        }
+        int f = playerBullet ? PLAYER : ENEMY;
+        x[count] = bulletX;
+        y[count] = bulletY;
+        prevX[count] = bulletX;
+        prevY[count] = bulletY;
+        direction[count] = (byte) dir.ordinal();
+        faction[count] = (byte) f;
+        factionCount[f]++;
+        count++;
+    }
+
+    // 删除第i颗子弹: 最后一颗子弹移到i的位置
+    public void remove(int i) {
+        factionCount[faction[i]]--;
+        int last = --count;
+        x[i] = x[last];
+        y[i] = y[last];
+        prevX[i] = prevX[last];
+        prevY[i] = prevY[last];
+        direction[i] = direction[last];
+        faction[i] = faction[last];
+    }
+
+    public void clear() {
+        count = 0;
+        factionCount[PLAYER] = 0;
+        factionCount[ENEMY] = 0;
+    }
+
+    // 复制 src 的全部子弹(渲染帧用)
+    public void copyFrom(BulletPool src) {
+        if (x.length < src.count) {
+            int capacity = src.x.length;
+            x = new int[capacity];
+            y = new int[capacity];
+            prevX = new int[capacity];
+            prevY = new int[capacity];
+            direction = new byte[capacity];
+            faction = new byte[capacity];
+        }
+        System.arraycopy(src.x, 0, x, 0, src.count);
+        System.arraycopy(src.y, 0, y, 0, src.count);
+        System.arraycopy(src.prevX, 0, prevX, 0, src.count);
+        System.arraycopy(src.prevY, 0, prevY, 0, src.count);
+        System.arraycopy(src.direction, 0, direction, 0, src.count);
+        System.arraycopy(src.faction, 0, faction, 0, src.count);
+        factionCount[PLAYER] = src.factionCount[PLAYER];
+        factionCount[ENEMY] = src.factionCount[ENEMY];
+        count = src.count;
+    }
+
+    // 移动所有子弹 step 像素并删除飞出场地的子弹
+    public void update(int step) {
+        // 倒序遍历, 换到当前位置的子弹已经处理过
+        for (int i = count - 1; i >= 0; i--) {
+            Direction dir = DIRECTIONS[direction[i]];
+            prevX[i] = x[i];
+            prevY[i] = y[i];
+            x[i] += dir.getDx() * step;
+            y[i] += dir.getDy() * step;
+            if (isOutOfBounds(i)) {
+                remove(i);
+            }
+        }
+    }
+
+    public boolean isOutOfBounds(int i) {
+        return x[i] < 0 || x[i] > World.WIDTH || y[i] < 0 || y[i] > World.HEIGHT;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int count(int f) {
+        return factionCount[f];
+    }
+
+    public int getX(int i) {
+        return x[i];
+    }
+
+    public int getY(int i) {
+        return y[i];
+    }
+
+    // 上一个tick的位置, 存档用
+    public int getPrevX(int i) {
+        return prevX[i];
+    }
+
+    public int getPrevY(int i) {
+        return prevY[i];
+    }
+
+    // 存档恢复时设置刚加入的子弹的上一个tick位置
+    void setPrevious(int i, int px, int py) {
+        prevX[i] = px;
+        prevY[i] = py;
+    }
+
+    // 插值后的绘制位置
+    public int renderX(int i, double alpha) {
+        return (int) Math.round(prevX[i] + (x[i] - prevX[i]) * alpha);
+    }
+
+    public int renderY(int i, double alpha) {
+        return (int) Math.round(prevY[i] + (y[i] - prevY[i]) * alpha);
+    }
+
+    public Direction getDirection(int i) {
+        return DIRECTIONS[direction[i]];
+    }
+
+    public boolean isPlayerBullet(int i) {
+        return faction[i] == PLAYER;
+    }
+
+    // 第i颗子弹是否击中坦克
+    public boolean hits(int i, Tank tank) {
+        return tank.intersects(x[i], y[i], SIZE, SIZE);
+    }
+}
@@ -0,0 +1,33 @@
+// 镜头 - 跟随1号玩家, 让它保持在屏幕中间; 到世界边缘时停住, 不露出世界外面
+// 世界只有一屏大时镜头固定在(0, 0). 坐标是世界像素, 绘制时整体平移 (-x, -y)
+class Camera {
+    private int x;
+    private int y;
+
+    // 按插值后的玩家位置对准, 和绘制用同一个 alpha, 画面不会相对玩家抖动
+    public void follow(RenderView view, double alpha) {
+        PlayerTank player = view.getPlayer();
+        if (player == null) {
+            return;
+        }
+        x = clamp(player.renderX(alpha) + player.width / 2 - World.VIEW_WIDTH / 2, World.WIDTH - World.VIEW_WIDTH);
+        y = clamp(player.renderY(alpha) + player.height / 2 - World.VIEW_HEIGHT / 2, World.HEIGHT - World.VIEW_HEIGHT);
+    }
+
+    private static int clamp(int value, int max) {
+        return Math.max(0, Math.min(max, value));
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    // 世界坐标的矩形是否有一部分在屏幕上
+    public boolean sees(int left, int top, int width, int height) {
+        return left < x + World.VIEW_WIDTH && left + width > x && top < y + World.VIEW_HEIGHT && top + height > y;
+    }
+}
@@ -0,0 +1,121 @@
+import java.io.IOException;
+import java.util.Random;
+
+// 碰撞检查 - 先用随机生成的坦克和子弹包围盒比较网格粗筛和逐对检测的结果,
+// 再在 VERIFY 模式下无界面运行一局密集的战斗, 每次碰撞查询都同时用网格和暴力检测并比较结果
+// 两者不一致时 World 抛出异常; 另外要求途中确实发生过子弹击中敌人和玩家, 否则比较没有意义. 失败时以状态1退出
+// 用法: java CollisionCheck [敌人数] [tick数] [轮数]
+class CollisionCheck {
+    private static final int TANK_SIZE = 40;
+    private static final int BULLET_SIZE = 6;
+
+    public static void main(String[] args) throws IOException {
+        int enemies = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 3000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        checkGrid(rounds);
+        checkBattle(enemies, ticks);
+    }
+
+    // 包围盒随机比较, 覆盖场地边缘和场地外的子弹, 以及互相重叠的坦克
+    private static void checkGrid(int rounds) {
+        Random random = new Random(42);
+        SpatialHash grid = new SpatialHash(TankWarGame.WIDTH, TankWarGame.HEIGHT, 50);
+        int[] found = new int[16];
+        long queries = 0;
+        long hits = 0;
+
+        for (int round = 0; round < rounds; round++) {
+            // 每轮敌人数不同, 和游戏中一样每次重建网格
+            int count = random.nextInt(64);
+            int[] x = new int[count];
+            int[] y = new int[count];
+            grid.clear();
+            for (int i = 0; i < count; i++) {
+                x[i] = random.nextInt(TankWarGame.WIDTH - TANK_SIZE);
+                y[i] = random.nextInt(TankWarGame.HEIGHT - TANK_SIZE);
+                grid.add(x[i], y[i], TANK_SIZE, TANK_SIZE);
+            }
+            grid.build();
+            if (found.length < count) {
+                found = new int[count];
+            }
+
+            for (int q = 0; q < 32; q++) {
+                // 子弹可能已经飞出场地一点, 坦克查询用来检测玩家阻挡
+                boolean bullet = q % 2 == 0;
+                int size = bullet ? BULLET_SIZE : TANK_SIZE;
+                int qx = random.nextInt(TankWarGame.WIDTH + 40) - 20;
+                int qy = random.nextInt(TankWarGame.HEIGHT + 40) - 20;
+
+                int expectedFirst = -1;
+                int expectedCount = 0;
+                for (int i = 0; i < count; i++) {
+                    if (SpatialHash.overlaps(x[i], y[i], TANK_SIZE, TANK_SIZE, qx, qy, size, size)) {
+                        if (expectedFirst < 0) {
+                            expectedFirst = i;
+                        }
+                        expectedCount++;
+                    }
+                }
+
+                int first = grid.queryFirst(qx, qy, size, size);
+                int matched = grid.query(qx, qy, size, size, found);
+                if (first != expectedFirst || matched != expectedCount) {
+                    fail("第 " + round + " 轮 查询(" + qx + ", " + qy + ", " + size + "): 暴力检测 first="
+                            + expectedFirst + " count=" + expectedCount + ", 网格 first=" + first + " count=" + matched);
+                }
+                for (int k = 0; k < matched; k++) {
+                    int i = found[k];
+                    if (!SpatialHash.overlaps(x[i], y[i], TANK_SIZE, TANK_SIZE, qx, qy, size, size)) {
+                        fail("第 " + round + " 轮 网格返回了不相交的实体 " + i);
+                    }
+                }
+                queries++;
+                hits += expectedCount;
+            }
+        }
+        System.out.printf("网格与暴力检测一致: %d 轮, %d 次查询, %d 次相交%n", rounds, queries, hits);
+    }
+
+    private static void checkBattle(int enemies, int ticks) throws IOException {
+        World world = new World(42);
+        world.setCollisionMode(CollisionMode.VERIFY);
+        world.setMaxEnemies(enemies);
+        world.setMaxEnemyBullets(enemies);
+        world.setSpawnBatch(Math.max(1, enemies / 10));
+        world.setStartingLives(Integer.MAX_VALUE); // 玩家被击中不结束, 一直比较到最后
+        world.setDifficulty(Difficulty.HARD);
+        world.setLevel(TileMap.load(GameConfig.LEVEL));
+        world.start();
+
+        Random keys = new Random(7);
+        int held = 0;
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < ticks; i++) {
+                // 方向键每隔一段时间换一次, 每隔几个tick开火
+                if (i % 50 == 0) {
+                    held = 1 << keys.nextInt(4);
+                }
+                world.step(held | (i % 5 == 0 ? World.INPUT_FIRE : 0));
+            }
+        } catch (IllegalStateException e) {
+            fail(e.getMessage() + ", tick " + world.getTickCount());
+        }
+        long livesLost = Integer.MAX_VALUE - (long) world.getLives();
+        System.out.printf("VERIFY 模式 %d tick (%.1f s): 网格与暴力检测一致; 击毁敌人 %d, 玩家被击中 %d 次, 敌人 %d, 子弹 %d%n",
+                ticks, (System.nanoTime() - start) / 1e9, world.getScore() / 10, livesLost,
+                world.getEnemies().size(), world.getBullets().size());
+
+        if (world.getScore() == 0 || livesLost == 0) {
+            fail("没有发生足够的碰撞, 比较没有覆盖到击中的情况");
+        }
+    }
+
+    private static void fail(String message) {
+        System.err.println("检查失败: " + message);
+        System.exit(1);
+    }
+}
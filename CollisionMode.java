@@ -0,0 +1,20 @@
+// 碰撞检测模式
+enum CollisionMode {
+    BRUTE_FORCE,  // 逐对检测所有子弹和坦克
+    SPATIAL_HASH, // 均匀网格粗筛, 只检测附近格子
+    VERIFY;       // 两种都执行并比较结果, 不一致时抛出异常(调试用)
+
+    // 不认识的值直接报错, 拼错 verify 时不会悄悄用网格跑完检查
+    public static CollisionMode parse(String value) {
+        switch (value.toLowerCase()) {
+            case "grid":
+                return SPATIAL_HASH;
+            case "brute":
+                return BRUTE_FORCE;
+            case "verify":
+                return VERIFY;
+            default:
+                throw new IllegalArgumentException("未知的碰撞检测模式: " + value + " (可选 grid / brute / verify)");
+        }
+    }
+}
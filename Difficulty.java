@@ -0,0 +1,26 @@
+// 难度枚举
+enum Difficulty {
+    EASY(1500, 80, 2), MEDIUM(1000, 50, 3), HARD(700, 30, 5);
+
+    private final int spawnRate;  // 敌人生成间隔(毫秒)
+    private final int fireRate;   // 敌人开火频率(越低越快)
+    private final int maxBullets; // 最大子弹数
+
+    Difficulty(int spawnRate, int fireRate, int maxBullets) {
+        this.spawnRate = spawnRate;
+        this.fireRate = fireRate;
+        this.maxBullets = maxBullets;
+    }
+
+    public int getSpawnRate() {
+        return spawnRate;
+    }
+
+    public int getFireRate() {
+        return fireRate;
+    }
+
+    public int getMaxBullets() {
+        return maxBullets;
+    }
+}
@@ -0,0 +1,33 @@
+// 方向枚举 - 8个方向
+enum Direction {
+    UP(0, -1), UP_RIGHT(1, -1), RIGHT(1, 0), DOWN_RIGHT(1, 1),
+    DOWN(0, 1), DOWN_LEFT(-1, 1), LEFT(-1, 0), UP_LEFT(-1, -1);
+
+    private final int dx;
+    private final int dy;
+
+    Direction(int dx, int dy) {
+        this.dx = dx;
+        this.dy = dy;
+    }
+
+    public int getDx() {
+        return dx;
+    }
+
+    public int getDy() {
+        return dy;
+    }
+
+    // 按 (dx + 1) * 3 + (dy + 1) 查表
+    private static final Direction[] BY_OFFSET = {
+            UP_LEFT, LEFT, DOWN_LEFT,
+            UP, null, DOWN,
+            UP_RIGHT, RIGHT, DOWN_RIGHT
+    };
+
+    // 获取偏移(各分量为 -1, 0, 1)对应的方向, (0, 0) 返回null
+    public static Direction of(int dx, int dy) {
+        return BY_OFFSET[(dx + 1) * 3 + (dy + 1)];
+    }
+}
@@ -0,0 +1,241 @@
+import java.awt.*;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+
+// 脏矩形 - 把屏幕分成20x20像素的格子, 每帧给每个格子算一个"画了什么"的签名(覆盖它的所有实体的哈希之和)
+// 签名与上一帧不同的格子就是移动或变化过的实体新旧位置的并集, 只重画这些格子
+// 脏区域超过屏幕的一定比例时直接整屏重画; 大世界里镜头一动整个画面都变了, 也整屏重画
+class DirtyRegions {
+    private static final int CELL = TileMap.TILE;
+    private static final int COLS = World.VIEW_WIDTH / CELL;
+    private static final int ROWS = World.VIEW_HEIGHT / CELL;
+    private static final long FULL_PIXELS = (long) World.VIEW_WIDTH * World.VIEW_HEIGHT;
+
+    // 脏区域超过这个比例时整屏重画, 此时逐格裁剪已经省不了多少
+    private static final double FULL_REPAINT_FRACTION = 0.5;
+
+    private long[] current = new long[COLS * ROWS];
+    private long[] previous = new long[COLS * ROWS];
+    // 上次重画以来变过的格子; Swing 可能把几次 repaint 合并成一次绘制, 所以要累积到真正画完
+    private final boolean[] pending = new boolean[COLS * ROWS];
+
+    // 地形变化直接标脏
+    private TileMap terrain;
+    private int terrainChanges;
+
+    // 与 WorldRenderer 用同样的方式跟随玩家, 实体按屏幕坐标盖章
+    private final Camera camera = new Camera();
+    private int cameraX;
+    private int cameraY;
+
+    private boolean full = true;
+    private int dirtyCells;
+    // 裁剪区域每帧 reset() 后重新描出, 路径的坐标数组扩容后一直复用; clip 为null表示整屏重画
+    private final Path2D.Float path = new Path2D.Float();
+    private Path2D.Float clip;
+    private final Rectangle bounds = new Rectangle();
+
+    // 下一帧整屏重画(状态切换、离开游戏画面时)
+    public void invalidate() {
+        full = true;
+        terrain = null;
+    }
+
+    // 在推进模拟之后、请求重画之前调用; 返回false表示画面没有变化, 不需要重画
+    public boolean collect(RenderView view, ParticleSystem particles, double alpha, Rectangle overlay) {
+        Arrays.fill(current, 0);
+
+        camera.follow(view, alpha);
+        if (camera.getX() != cameraX || camera.getY() != cameraY) {
+            full = true;
+            cameraX = camera.getX();
+            cameraY = camera.getY();
+        }
+
+        // HUD 内容变化时整条重画(HUD 不随镜头移动, 盖章前先把镜头偏移加回去)
+        stamp(cameraX, cameraY, World.VIEW_WIDTH, ScreenLayers.HUD_HEIGHT,
+                hash(view.getScore(), view.getLives(), view.getDifficulty().ordinal(), 1));
+
+        PlayerTank player = view.getPlayer();
+        stampTank(player, alpha, 2);
+        EnemyPool enemies = view.getEnemies();
+        for (int i = 0; i < enemies.size(); i++) {
+            int x = enemies.renderX(i, alpha);
+            int y = enemies.renderY(i, alpha);
+            stamp(x - 10, y - 10, 60, 60, hash(x, y, enemies.getDirection(i).ordinal(), 3));
+        }
+
+        BulletPool bullets = view.getBullets();
+        for (int i = 0; i < bullets.size(); i++) {
+            int x = bullets.renderX(i, alpha);
+            int y = bullets.renderY(i, alpha);
+            stamp(x, y, BulletPool.SIZE, BulletPool.SIZE, hash(x, y, bullets.isPlayerBullet(i) ? 1 : 0, 4));
+        }
+
+        // 粒子先推进到当前tick(绘制时不会再推进), 每个粒子盖在它的方块上
+        particles.advance(view.getEffects(), view.getTickCount());
+        for (int i = 0; i < particles.size(); i++) {
+            int x = particles.renderX(i, alpha);
+            int y = particles.renderY(i, alpha);
+            stamp(x, y, particles.getSize(i), particles.getSize(i), hash(x, y, particles.getColor(i), 6));
+        }
+
+        ExplosionPool explosions = view.getExplosions();
+        for (int i = 0; i < explosions.size(); i++) {
+            int radius = explosions.getRadius(i);
+            stamp(explosions.getX(i) + 20 - radius / 2, explosions.getY(i) + 20 - radius / 2, radius, radius,
+                    hash(explosions.getX(i), explosions.getY(i), radius, 5));
+        }
+
+        TileMap viewTerrain = view.getTerrain();
+        if (viewTerrain != terrain) {
+            full = true;
+        } else {
+            for (; terrainChanges < terrain.getChangeCount(); terrainChanges++) {
+                int index = terrain.getChange(terrainChanges);
+                forceRect(index % TileMap.COLS * TileMap.TILE - cameraX, index / TileMap.COLS * TileMap.TILE - cameraY,
+                        TileMap.TILE, TileMap.TILE);
+            }
+        }
+        terrain = viewTerrain;
+        terrainChanges = viewTerrain.getChangeCount();
+
+        // 性能叠加层每帧都在变
+        if (overlay != null) {
+            forceRect(overlay.x, overlay.y, overlay.width, overlay.height);
+        }
+
+        dirtyCells = 0;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != previous[i]) {
+                pending[i] = true;
+            }
+            if (pending[i]) {
+                dirtyCells++;
+            }
+        }
+        if ((double) dirtyCells * CELL * CELL > FULL_REPAINT_FRACTION * FULL_PIXELS) {
+            full = true;
+        }
+        if (full) {
+            clip = null;
+            bounds.setBounds(0, 0, World.VIEW_WIDTH, World.VIEW_HEIGHT);
+        } else if (dirtyCells > 0) {
+            buildClip();
+        }
+
+        long[] swap = previous;
+        previous = current;
+        current = swap;
+        return full || dirtyCells > 0;
+    }
+
+    // 整屏重画时为null
+    public Shape getClip() {
+        return clip;
+    }
+
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    // 本帧重画的像素数
+    public long getPixels() {
+        return full ? FULL_PIXELS : (long) dirtyCells * CELL * CELL;
+    }
+
+    public static long getFullPixels() {
+        return FULL_PIXELS;
+    }
+
+    // 画完一帧后调用
+    public void painted() {
+        full = false;
+        Arrays.fill(pending, false);
+    }
+
+    // 每行相邻的脏格合并成一个矩形; 矩形互不重叠, 作为裁剪区域时 Java2D 直接按扫描线处理
+    private void buildClip() {
+        clip = path;
+        clip.reset();
+        int minCol = COLS;
+        int maxCol = -1;
+        int minRow = ROWS;
+        int maxRow = -1;
+        for (int row = 0; row < ROWS; row++) {
+            int col = 0;
+            while (col < COLS) {
+                if (!pending[row * COLS + col]) {
+                    col++;
+                    continue;
+                }
+                int start = col;
+                while (col < COLS && pending[row * COLS + col]) {
+                    col++;
+                }
+                appendRect(start * CELL, row * CELL, (col - start) * CELL, CELL);
+                minCol = Math.min(minCol, start);
+                maxCol = Math.max(maxCol, col - 1);
+                minRow = Math.min(minRow, row);
+                maxRow = row;
+            }
+        }
+        bounds.setBounds(minCol * CELL, minRow * CELL, (maxCol - minCol + 1) * CELL, (maxRow - minRow + 1) * CELL);
+    }
+
+    // 矩形作为一段闭合子路径加入裁剪区域, 不创建 Rectangle
+    private void appendRect(int x, int y, int width, int height) {
+        clip.moveTo(x, y);
+        clip.lineTo(x + width, y);
+        clip.lineTo(x + width, y + height);
+        clip.lineTo(x, y + height);
+        clip.closePath();
+    }
+
+    private void stampTank(Tank tank, double alpha, int kind) {
+        // 精灵四周有10像素留白(履带和炮管)
+        int x = tank.renderX(alpha);
+        int y = tank.renderY(alpha);
+        stamp(x - 10, y - 10, 60, 60, hash(x, y, tank.getDirection().ordinal(), kind));
+    }
+
+    // 把签名加到矩形(世界坐标)覆盖的每个屏幕格子上; 用加法, 与绘制顺序无关
+    private void stamp(int x, int y, int width, int height, long signature) {
+        x -= cameraX;
+        y -= cameraY;
+        int col0 = Math.max(0, Math.floorDiv(x, CELL));
+        int col1 = Math.min(COLS - 1, Math.floorDiv(x + width - 1, CELL));
+        int row0 = Math.max(0, Math.floorDiv(y, CELL));
+        int row1 = Math.min(ROWS - 1, Math.floorDiv(y + height - 1, CELL));
+        for (int row = row0; row <= row1; row++) {
+            for (int col = col0; col <= col1; col++) {
+                current[row * COLS + col] += signature;
+            }
+        }
+    }
+
+    // 屏幕坐标的矩形直接标脏
+    private void forceRect(int x, int y, int width, int height) {
+        int col0 = Math.max(0, Math.floorDiv(x, CELL));
+        int col1 = Math.min(COLS - 1, Math.floorDiv(x + width - 1, CELL));
+        int row0 = Math.max(0, Math.floorDiv(y, CELL));
+        int row1 = Math.min(ROWS - 1, Math.floorDiv(y + height - 1, CELL));
+        for (int row = row0; row <= row1; row++) {
+            for (int col = col0; col <= col1; col++) {
+                pending[row * COLS + col] = true;
+            }
+        }
+    }
+
+    private static long hash(int a, int b, int c, int kind) {
+        long h = kind;
+        h = (h ^ a) * 0x9E3779B97F4A7C15L;
+        h = (h ^ b) * 0x9E3779B97F4A7C15L;
+        h = (h ^ c) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,83 @@
+// 特效事件 - 模拟中发生的、只影响画面的事情(坦克爆炸、开火、子弹打在墙上), 绘制端的 ParticleSystem 读取后生成粒子
+// 固定容量的环形缓冲区, 各字段存放在基本类型数组中, 写入从不分配; 读的一方落后超过容量时最旧的事件被覆盖, 只是少画一些粒子
+// 不是游戏状态: 不参与校验和, 不存档, 也不发给联机客户端
+class EffectLog {
+    static final int EXPLOSION = 0; // 坦克被击毁, (x, y) 为坦克中心
+    static final int MUZZLE = 1;    // 开火, (x, y) 为子弹出生点, 方向为子弹方向
+    static final int BRICK = 2;     // 子弹打掉砖墙
+    static final int STEEL = 3;     // 子弹打在钢墙上
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int mask;
+    private final byte[] kind;
+    private final int[] x;
+    private final int[] y;
+    private final byte[] direction;
+    private long written;
+
+    // capacity 向上取为2的幂
+    public EffectLog(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        mask = size - 1;
+        kind = new byte[size];
+        x = new int[size];
+        y = new int[size];
+        direction = new byte[size];
+    }
+
+    public void add(int eventKind, int eventX, int eventY, Direction dir) {
+        int slot = (int) written & mask;
+        kind[slot] = (byte) eventKind;
+        x[slot] = eventX;
+        y[slot] = eventY;
+        direction[slot] = (byte) dir.ordinal();
+        written++;
+    }
+
+    // 复制 src 中第 from 个起(已被覆盖的除外)的事件, 放在同样的槽位; 两个日志容量相同. 渲染帧只带增量时用
+    public void copyFrom(EffectLog src, long from) {
+        for (long n = Math.max(from, src.written - src.capacity()); n < src.written; n++) {
+            int slot = (int) n & mask;
+            kind[slot] = src.kind[slot];
+            x[slot] = src.x[slot];
+            y[slot] = src.y[slot];
+            direction[slot] = src.direction[slot];
+        }
+        written = src.written;
+    }
+
+    // 把 src 中第 from 个起、本日志还没有的事件接到后面, 按序号去重; 中间已被覆盖的跳过
+    public void append(EffectLog src, long from) {
+        long n = Math.max(Math.max(written, from), src.written - src.capacity());
+        written = n;
+        for (; n < src.written; n++) {
+            add(src.getKind(n), src.getX(n), src.getY(n), src.getDirection(n));
+        }
+    }
+
+    // 累计写入的事件数, 第n个事件(从0起)在 written - capacity 之前时已被覆盖
+    public long getWritten() {
+        return written;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public int getKind(long n) {
+        return kind[(int) n & mask];
+    }
+
+    public int getX(long n) {
+        return x[(int) n & mask];
+    }
+
+    public int getY(long n) {
+        return y[(int) n & mask];
+    }
+
+    public Direction getDirection(long n) {
+        return DIRECTIONS[direction[(int) n & mask]];
+    }
+}
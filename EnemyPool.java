@@ -0,0 +1,290 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// 敌人池 - 所有敌人坦克的组件按类型存放在预分配的基本类型数组中(结构数组), 和 BulletPool 一样不为每个敌人建对象
+//   位置: x, y, prevX, prevY      朝向: direction(速度由朝向和 SPEED 决定, 不单独保存)
+//   AI计时: moveTime, followTime   随机数: rng(GameRandom 的状态)   编号: id
+// 移动、AI计时、地形检查都写成对一段下标 [from, to) 的线性遍历, EnemyUpdater 按块调用, 各块互不干扰;
+// 计时到期后的决策(追踪、随机转向)由 AiScheduler 按预算逐个执行
+// 删除时按标记原地压缩, 保持敌人顺序: 碰撞时命中"第一个"敌人、开火顺序都依赖这个顺序
+class EnemyPool {
+    public static final int SIZE = 40;
+    public static final int SPEED = 1; // 100Hz 下每tick移动的像素, 其他频率按 GameConfig.perTicks 换算
+
+    // 每1秒可能随机转向, 每3秒沿流场追踪玩家
+    static final int MOVE_INTERVAL = GameConfig.ticks(1000);
+    static final int FOLLOW_INTERVAL = GameConfig.ticks(3000);
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private int[] x;
+    private int[] y;
+    private int[] prevX; // 上一个tick的位置, 用于渲染插值
+    private int[] prevY;
+    private byte[] direction;
+    private int[] id; // 本局内按生成顺序递增, 联机快照用它对应前后两帧的同一个敌人
+    private int[] moveTime;
+    private int[] followTime;
+    private long[] rng; // 每个敌人自己的随机序列, 只由更新它的线程推进
+    private int count;
+
+    public EnemyPool(int capacity) {
+        x = new int[capacity];
+        y = new int[capacity];
+        prevX = new int[capacity];
+        prevY = new int[capacity];
+        direction = new byte[capacity];
+        id = new int[capacity];
+        moveTime = new int[capacity];
+        followTime = new int[capacity];
+        rng = new long[capacity];
+    }
+
+    // 加入一个朝下的新敌人, seed 决定它的随机序列; 返回下标
+    public int spawn(int enemyX, int enemyY, int enemyId, long seed) {
+        if (count == x.length) {
+            // 只有超过预分配容量时才扩容, 稳定运行时不会走到这里
+            int newCapacity = Math.max(16, count * 2);
+            x = Arrays.copyOf(x, newCapacity);
+            y = Arrays.copyOf(y, newCapacity);
+            prevX = Arrays.copyOf(prevX, newCapacity);
+            prevY = Arrays.copyOf(prevY, newCapacity);
+            direction = Arrays.copyOf(direction, newCapacity);
+            id = Arrays.copyOf(id, newCapacity);
+            moveTime = Arrays.copyOf(moveTime, newCapacity);
+            followTime = Arrays.copyOf(followTime, newCapacity);
+            rng = Arrays.copyOf(rng, newCapacity);
+        }
+        int i = count++;
+        x[i] = enemyX;
+        y[i] = enemyY;
+        prevX[i] = enemyX;
+        prevY[i] = enemyY;
+        direction[i] = (byte) Direction.DOWN.ordinal();
+        id[i] = enemyId;
+        moveTime[i] = 0;
+        followTime[i] = 0;
+        rng[i] = GameRandom.initialState(seed);
+        return i;
+    }
+
+    // 删除 removed[i] 为true的敌人, 其余的按原顺序前移
+    public void removeMarked(boolean[] removed) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (removed[i]) {
+                continue;
+            }
+            if (kept != i) {
+                x[kept] = x[i];
+                y[kept] = y[i];
+                prevX[kept] = prevX[i];
+                prevY[kept] = prevY[i];
+                direction[kept] = direction[i];
+                id[kept] = id[i];
+                moveTime[kept] = moveTime[i];
+                followTime[kept] = followTime[i];
+                rng[kept] = rng[i];
+            }
+            kept++;
+        }
+        count = kept;
+    }
+
+    // 删除最后加入的敌人
+    public void removeLast() {
+        count--;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    // 复制 src 中绘制用的位置和朝向(渲染帧用), AI计时和随机数不复制
+    public void copyFrom(EnemyPool src) {
+        if (x.length < src.count) {
+            int capacity = src.x.length;
+            x = new int[capacity];
+            y = new int[capacity];
+            prevX = new int[capacity];
+            prevY = new int[capacity];
+            direction = new byte[capacity];
+            id = new int[capacity];
+            moveTime = new int[capacity];
+            followTime = new int[capacity];
+            rng = new long[capacity];
+        }
+        System.arraycopy(src.x, 0, x, 0, src.count);
+        System.arraycopy(src.y, 0, y, 0, src.count);
+        System.arraycopy(src.prevX, 0, prevX, 0, src.count);
+        System.arraycopy(src.prevY, 0, prevY, 0, src.count);
+        System.arraycopy(src.direction, 0, direction, 0, src.count);
+        count = src.count;
+    }
+
+    // AI计时: steps[i] 为第i个敌人本次推进的tick数(0 表示不动)
+    public void advanceTimers(int from, int to, byte[] steps) {
+        for (int i = from; i < to; i++) {
+            moveTime[i] += steps[i];
+            followTime[i] += steps[i];
+        }
+    }
+
+    // 计时是否到了该做决策的时候; scale 为间隔的倍数, 屏幕外的敌人决策得少一些
+    public boolean isDue(int i, int scale) {
+        return followTime[i] >= FOLLOW_INTERVAL * scale || moveTime[i] >= MOVE_INTERVAL * scale;
+    }
+
+    // AI决策: 追踪计时到了就沿流场追踪玩家, 转向计时到了就有20%概率随机转向, 做过的计时清零
+    // 只读流场, 只改自己的计时、朝向和随机数
+    public void decide(int i, int scale, FlowField flowField) {
+        if (followTime[i] >= FOLLOW_INTERVAL * scale) {
+            followPlayer(i, flowField);
+            followTime[i] = 0;
+        }
+        if (moveTime[i] >= MOVE_INTERVAL * scale) {
+            if (GameRandom.nextInt(rng, i, 100) < 20) {
+                direction[i] = (byte) GameRandom.nextInt(rng, i, DIRECTIONS.length);
+            }
+            moveTime[i] = 0;
+        }
+    }
+
+    // 移动: 一次走完到第 tick 个tick为止的 steps[i] 个tick的路, 再压回世界范围内
+    public void move(int from, int to, byte[] steps, long tick) {
+        int fullStep = GameConfig.perTick(SPEED, tick);
+        for (int i = from; i < to; i++) {
+            int s = steps[i];
+            if (s == 0) {
+                continue;
+            }
+            int distance = s == 1 ? fullStep : GameConfig.perTicks(SPEED, tick + 1 - s, tick + 1);
+            Direction dir = DIRECTIONS[direction[i]];
+            prevX[i] = x[i];
+            prevY[i] = y[i];
+            x[i] = clamp(x[i] + dir.getDx() * distance, World.WIDTH - SIZE);
+            y[i] = clamp(y[i] + dir.getDy() * distance, World.HEIGHT - SIZE);
+        }
+    }
+
+    private static int clamp(int value, int max) {
+        return value < 0 ? 0 : Math.min(value, max);
+    }
+
+    // 移动后压到墙上时退回, 规则同 Tank.resolveTerrain: 先只退回x, 再只退回y, 都不行才退回原位
+    public void resolveTerrain(int from, int to, byte[] steps, TileMap terrain) {
+        for (int i = from; i < to; i++) {
+            if (steps[i] == 0 || !terrain.blocks(x[i], y[i], SIZE, SIZE)) {
+                continue;
+            }
+            if (!terrain.blocks(prevX[i], y[i], SIZE, SIZE)) {
+                x[i] = prevX[i];
+            } else if (!terrain.blocks(x[i], prevY[i], SIZE, SIZE)) {
+                y[i] = prevY[i];
+            } else {
+                x[i] = prevX[i];
+                y[i] = prevY[i];
+            }
+        }
+    }
+
+    // 沿流场朝玩家走(绕开墙), 已经和玩家重合时保持原方向
+    public void followPlayer(int i, FlowField flowField) {
+        Direction newDirection = flowField.directionFrom(x[i], y[i]);
+        if (newDirection != null) {
+            direction[i] = (byte) newDirection.ordinal();
+        }
+    }
+
+    // 第i个敌人本tick是否开火, chance 为100Hz下每tick的百分比概率; 只使用它自己的随机数, 可以并行调用
+    // 在 [0, TICK_RATE) 中取随机数, 每秒的开火次数不随频率变化; 100Hz 时与按百分比取完全相同
+    public boolean rollFire(int i, int chance) {
+        return GameRandom.nextInt(rng, i, GameConfig.TICK_RATE) < chance;
+    }
+
+    public void fire(int i, BulletPool bullets) {
+        int bulletX = x[i] + SIZE / 2 - 3;
+        int bulletY = y[i] + SIZE / 2 - 3;
+        Direction dir = DIRECTIONS[direction[i]];
+
+        bullets.spawn(bulletX, bulletY, dir, false);
+
+        GameEvents.BulletFire event = new GameEvents.BulletFire();
+        if (event.shouldCommit()) {
+            event.player = false;
+            event.x = bulletX;
+            event.y = bulletY;
+            event.direction = dir.name();
+            event.bullets = bullets.size();
+            event.commit();
+        }
+    }
+
+    // 第i个敌人的车身与矩形(x, y, width, height)是否相交
+    public boolean intersects(int i, int otherX, int otherY, int otherWidth, int otherHeight) {
+        return SpatialHash.overlaps(x[i], y[i], SIZE, SIZE, otherX, otherY, otherWidth, otherHeight);
+    }
+
+    // 存档: 与原来的坦克记录格式相同(位置、上一tick的位置、速度、方向), 之后是编号、AI计时和随机数状态
+    void writeState(int i, ByteBuffer out) {
+        Direction dir = DIRECTIONS[direction[i]];
+        VarInt.put(out, VarInt.zigzag(x[i]));
+        VarInt.put(out, VarInt.zigzag(y[i]));
+        VarInt.put(out, VarInt.zigzag(prevX[i]));
+        VarInt.put(out, VarInt.zigzag(prevY[i]));
+        VarInt.put(out, VarInt.zigzag(dir.getDx() * SPEED));
+        VarInt.put(out, VarInt.zigzag(dir.getDy() * SPEED));
+        out.put(direction[i]);
+        VarInt.put(out, id[i]);
+        VarInt.put(out, moveTime[i]);
+        VarInt.put(out, followTime[i]);
+        out.putLong(rng[i]);
+    }
+
+    // 读入 writeState 写出的一个敌人, 加到末尾; 速度由方向决定, 读出后丢弃
+    void readState(ByteBuffer in) {
+        int i = spawn((int) VarInt.unzigzag(VarInt.get(in)), (int) VarInt.unzigzag(VarInt.get(in)), 0, 0);
+        prevX[i] = (int) VarInt.unzigzag(VarInt.get(in));
+        prevY[i] = (int) VarInt.unzigzag(VarInt.get(in));
+        VarInt.get(in);
+        VarInt.get(in);
+        int dir = in.get();
+        if (dir < 0 || dir >= DIRECTIONS.length) {
+            throw new IllegalArgumentException("敌人方向 " + dir);
+        }
+        direction[i] = (byte) dir;
+        id[i] = (int) VarInt.get(in);
+        moveTime[i] = (int) VarInt.get(in);
+        followTime[i] = (int) VarInt.get(in);
+        rng[i] = in.getLong() & GameRandom.MASK;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getX(int i) {
+        return x[i];
+    }
+
+    public int getY(int i) {
+        return y[i];
+    }
+
+    public Direction getDirection(int i) {
+        return DIRECTIONS[direction[i]];
+    }
+
+    public int getId(int i) {
+        return id[i];
+    }
+
+    // 插值后的绘制位置
+    public int renderX(int i, double alpha) {
+        return (int) Math.round(prevX[i] + (x[i] - prevX[i]) * alpha);
+    }
+
+    public int renderY(int i, double alpha) {
+        return (int) Math.round(prevY[i] + (y[i] - prevY[i]) * alpha);
+    }
+}
@@ -0,0 +1,235 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// 敌人批量更新 - 移动和AI可以按块分给 fork-join 线程池并行执行
+// 每个敌人的更新只修改它自己; 开火请求和离场等会影响共享状态的结果先写入各块自己的缓冲区,
+// 之后由 World 按块号、块内下标的顺序合并, 所以结果与单线程完全一致
+// 大世界里按 ActiveRegion 的等级决定每个敌人本tick完整更新、简化更新还是不动
+// 每tick分三步: 各块定等级、推进AI计时并收集到期的决策(屏幕内外分开); AiScheduler 按预算串行执行决策;
+// 各块再移动、检查地形、开火和离场. 每块内按系统线性扫过 EnemyPool 的数组
+class EnemyUpdater {
+    // 每块敌人数, 与线程数无关, 保证分块方式固定
+    static final int CHUNK_SIZE = 256;
+
+    private final UpdateMode mode;
+    private final ForkJoinPool pool;
+    private final AiScheduler scheduler;
+
+    // 按块划分的结果缓冲区, 只在块数增加时扩容
+    private int[][] fireRequests = new int[0][];
+    private int[] fireCounts = new int[0];
+    private int[][] despawns = new int[0][];
+    private int[] despawnCounts = new int[0];
+    private int[][] dueNear = new int[0][];
+    private int[] dueNearCounts = new int[0];
+    private int[][] dueFar = new int[0][];
+    private int[] dueFarCounts = new int[0];
+    private int chunkCount;
+
+    // 每个敌人本tick推进的tick数: 完整模拟为1, 轮到的简化模拟为 CHEAP_INTERVAL, 其余为0; 各块只写自己的范围
+    private byte[] steps = new byte[CHUNK_SIZE];
+
+    private EnemyPool enemies;
+    private FlowField flowField;
+    private TileMap terrain;
+    private int fireChance;
+    private ActiveRegion region;
+    private long tick;
+
+    public EnemyUpdater(UpdateMode mode, AiScheduler scheduler) {
+        this.mode = mode;
+        this.pool = mode == UpdateMode.PARALLEL ? ForkJoinPool.commonPool() : null;
+        this.scheduler = scheduler;
+    }
+
+    // 更新所有敌人; fireChance 为每个敌人100Hz下每tick开火的百分比概率(见 EnemyPool.rollFire),
+    // tick 用来错开简化模拟的敌人和换算移动距离
+    // 更新期间流场、地形和活动区域只读, 各块可以同时检查
+    public void update(EnemyPool enemies, FlowField flowField, TileMap terrain, int fireChance, ActiveRegion region,
+                       long tick) {
+        this.enemies = enemies;
+        this.flowField = flowField;
+        this.terrain = terrain;
+        this.fireChance = fireChance;
+        this.region = region;
+        this.tick = tick;
+
+        chunkCount = (enemies.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        ensureChunks(chunkCount);
+        if (steps.length < enemies.size()) {
+            steps = new byte[chunkCount * CHUNK_SIZE];
+        }
+
+        runChunks(false);
+        scheduler.run(this, enemies, flowField);
+        runChunks(true);
+        this.enemies = null;
+        this.flowField = null;
+        this.terrain = null;
+        this.region = null;
+    }
+
+    private void runChunks(boolean move) {
+        // 只有一块时并行没有意义
+        if (pool != null && chunkCount > 1) {
+            pool.invoke(new ChunkTask(0, chunkCount, move));
+        } else {
+            for (int c = 0; c < chunkCount; c++) {
+                if (move) {
+                    moveChunk(c);
+                } else {
+                    thinkChunk(c);
+                }
+            }
+        }
+    }
+
+    // 第一步: 定等级, 推进AI计时, 收集计时到期的敌人
+    private void thinkChunk(int c) {
+        int from = c * CHUNK_SIZE;
+        int to = Math.min(from + CHUNK_SIZE, enemies.size());
+        int[] near = dueNear[c];
+        int[] far = dueFar[c];
+        int nearCount = 0;
+        int farCount = 0;
+
+        // 简化模拟的敌人一次走完 CHEAP_INTERVAL 个tick, 只检查一次地形, 不开火
+        for (int i = from; i < to; i++) {
+            int level = region.levelOf(enemies.getX(i), enemies.getY(i));
+            if (level == ActiveRegion.FULL) {
+                steps[i] = 1;
+            } else if (level == ActiveRegion.CHEAP && (tick + enemies.getId(i)) % ActiveRegion.CHEAP_INTERVAL == 0) {
+                steps[i] = ActiveRegion.CHEAP_INTERVAL;
+            } else {
+                steps[i] = 0;
+            }
+        }
+        enemies.advanceTimers(from, to, steps);
+        for (int i = from; i < to; i++) {
+            if (steps[i] == 0) {
+                continue;
+            }
+            if (region.isVisible(enemies.getX(i), enemies.getY(i), EnemyPool.SIZE)) {
+                if (enemies.isDue(i, 1)) {
+                    near[nearCount++] = i;
+                }
+            } else if (enemies.isDue(i, AiScheduler.FAR_SCALE)) {
+                far[farCount++] = i;
+            }
+        }
+        dueNearCounts[c] = nearCount;
+        dueFarCounts[c] = farCount;
+    }
+
+    // 第三步: 决策之后移动、检查地形、开火和离场
+    private void moveChunk(int c) {
+        int from = c * CHUNK_SIZE;
+        int to = Math.min(from + CHUNK_SIZE, enemies.size());
+        int[] fires = fireRequests[c];
+        int[] gone = despawns[c];
+        int fireCount = 0;
+        int despawnCount = 0;
+
+        enemies.move(from, to, steps, tick);
+        enemies.resolveTerrain(from, to, steps, terrain);
+
+        // 只有完整模拟(steps 为1)的敌人开火和离场; 开火在AI决策之后掷骰子, 每个敌人取随机数的顺序和逐个更新时一样
+        for (int i = from; i < to; i++) {
+            if (steps[i] != 1) {
+                continue;
+            }
+            if (enemies.rollFire(i, fireChance)) {
+                fires[fireCount++] = i;
+            }
+
+            // 离开屏幕
+            if (enemies.getY(i) > World.HEIGHT) {
+                gone[despawnCount++] = i;
+            }
+        }
+        fireCounts[c] = fireCount;
+        despawnCounts[c] = despawnCount;
+    }
+
+    private void ensureChunks(int count) {
+        if (fireRequests.length >= count) {
+            return;
+        }
+        int oldCount = fireRequests.length;
+        fireRequests = Arrays.copyOf(fireRequests, count);
+        despawns = Arrays.copyOf(despawns, count);
+        fireCounts = Arrays.copyOf(fireCounts, count);
+        despawnCounts = Arrays.copyOf(despawnCounts, count);
+        dueNear = Arrays.copyOf(dueNear, count);
+        dueNearCounts = Arrays.copyOf(dueNearCounts, count);
+        dueFar = Arrays.copyOf(dueFar, count);
+        dueFarCounts = Arrays.copyOf(dueFarCounts, count);
+        for (int c = oldCount; c < count; c++) {
+            fireRequests[c] = new int[CHUNK_SIZE];
+            despawns[c] = new int[CHUNK_SIZE];
+            dueNear[c] = new int[CHUNK_SIZE];
+            dueFar[c] = new int[CHUNK_SIZE];
+        }
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    // 第c块中申请开火的敌人下标(升序)
+    public int[] getFireRequests(int c) {
+        return fireRequests[c];
+    }
+
+    public int getFireCount(int c) {
+        return fireCounts[c];
+    }
+
+    // 第c块中离开屏幕的敌人下标(升序)
+    public int[] getDespawns(int c) {
+        return despawns[c];
+    }
+
+    public int getDespawnCount(int c) {
+        return despawnCounts[c];
+    }
+
+    // 第c块中AI计时到期的敌人下标(升序), near 为屏幕内的一组
+    public int[] getDue(int c, boolean near) {
+        return near ? dueNear[c] : dueFar[c];
+    }
+
+    public int getDueCount(int c, boolean near) {
+        return near ? dueNearCounts[c] : dueFarCounts[c];
+    }
+
+    // 按块二分的 fork-join 任务
+    private class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final boolean move;
+
+        ChunkTask(int from, int to, boolean move) {
+            this.from = from;
+            this.to = to;
+            this.move = move;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                if (move) {
+                    moveChunk(from);
+                } else {
+                    thinkChunk(from);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(from, mid, move), new ChunkTask(mid, to, move));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+import java.util.Arrays;
+
+// 爆炸池 - 爆炸的位置和半径存放在预分配的基本类型数组中(结构数组)
+// 半径从 START_RADIUS 按100Hz的每tick增加 STEP(其他频率按时间换算成整步, 半径总是奇数), 到 MAX_RADIUS 时结束;
+// 结束的爆炸按原顺序压缩掉, 槽位下次直接复用
+class ExplosionPool {
+    static final int START_RADIUS = 5;
+    static final int MAX_RADIUS = 30;
+    static final int STEP = 2;
+
+    private int[] x;
+    private int[] y;
+    private int[] radius;
+    private int count;
+
+    public ExplosionPool(int capacity) {
+        x = new int[capacity];
+        y = new int[capacity];
+        radius = new int[capacity];
+    }
+
+    // (x, y) 是被炸坦克的左上角, 爆炸画在坦克中心; 返回下标
+    public int spawn(int explosionX, int explosionY) {
+        if (count == x.length) {
+            int newCapacity = Math.max(16, count * 2);
+            x = Arrays.copyOf(x, newCapacity);
+            y = Arrays.copyOf(y, newCapacity);
+            radius = Arrays.copyOf(radius, newCapacity);
+        }
+        int i = count++;
+        x[i] = explosionX;
+        y[i] = explosionY;
+        radius[i] = START_RADIUS;
+        return i;
+    }
+
+    // 所有爆炸扩大 steps 步, 原地压缩掉结束的
+    public void update(int steps) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int r = radius[i] + STEP * steps;
+            if (r >= MAX_RADIUS) {
+                continue;
+            }
+            x[kept] = x[i];
+            y[kept] = y[i];
+            radius[kept] = r;
+            kept++;
+        }
+        count = kept;
+    }
+
+    // 复制 src 的全部爆炸(渲染帧用)
+    public void copyFrom(ExplosionPool src) {
+        if (x.length < src.count) {
+            int capacity = src.x.length;
+            x = new int[capacity];
+            y = new int[capacity];
+            radius = new int[capacity];
+        }
+        System.arraycopy(src.x, 0, x, 0, src.count);
+        System.arraycopy(src.y, 0, y, 0, src.count);
+        System.arraycopy(src.radius, 0, radius, 0, src.count);
+        count = src.count;
+    }
+
+    // 存档恢复时使用
+    void setRadius(int i, int r) {
+        radius[i] = r;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getX(int i) {
+        return x[i];
+    }
+
+    public int getY(int i) {
+        return y[i];
+    }
+
+    public int getRadius(int i) {
+        return radius[i];
+    }
+}
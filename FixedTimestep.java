@@ -0,0 +1,45 @@
+// 固定步长计时 - 用 System.nanoTime() 累加真实经过的时间, 每满一个tick推进一次模拟
+// 模拟速度只取决于tick频率, 与帧率和定时器抖动无关; 剩余不足一个tick的时间用于渲染插值
+class FixedTimestep {
+    private final long tickNanos;
+    private final int maxCatchUpTicks;
+
+    private long lastTime;
+    private long accumulator;
+
+    public FixedTimestep(int tickRate, int maxCatchUpTicks) {
+        this.tickNanos = 1_000_000_000L / tickRate;
+        this.maxCatchUpTicks = maxCatchUpTicks;
+        reset(System.nanoTime());
+    }
+
+    // 开始计时或从暂停恢复时调用, 丢弃之前累积的时间
+    public void reset(long now) {
+        lastTime = now;
+        accumulator = 0;
+    }
+
+    // 返回这一帧需要执行的tick数
+    public int advance(long now) {
+        accumulator += now - lastTime;
+        lastTime = now;
+
+        int ticks = (int) Math.min(accumulator / tickNanos, maxCatchUpTicks);
+        accumulator -= ticks * tickNanos;
+
+        // 落后超过追赶上限时丢弃积压, 否则卡顿后会一直追不上
+        if (accumulator >= tickNanos) {
+            accumulator %= tickNanos;
+        }
+        return ticks;
+    }
+
+    // 当前时刻在上一个tick和下一个tick之间的位置, 范围[0, 1)
+    public double alpha() {
+        return accumulator / (double) tickNanos;
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+}
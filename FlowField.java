@@ -0,0 +1,169 @@
+import java.util.Arrays;
+import java.util.List;
+
+// 流场寻路 - 在粗网格上从玩家所在格做一次广度优先搜索, 每格记下朝玩家走的下一步方向
+// 联机有多个玩家时从所有玩家同时出发搜索, 每格指向离它最近的玩家
+// 只在玩家换格或地形变化时重算; 敌人查自己所在格的方向是O(1), 寻路开销与敌人数量无关
+// 大世界里只搜索完整模拟的区域(见 setBounds), 区域外的格子按无路可走处理, 敌人直接朝最近的玩家走
+// 格子与地形格对齐, 一个格子表示坦克左上角落在该地形格, 坦克占2x2个地形格, 四格都是空地才可通行
+class FlowField {
+    static final int COLS = TileMap.COLS - 1;
+    static final int ROWS = TileMap.ROWS - 1;
+
+    private static final byte UNREACHABLE = -1;
+    private static final byte AT_TARGET = -2;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    // 每格朝目标走的下一步(Direction 序号), 或 UNREACHABLE / AT_TARGET
+    private final byte[] next = new byte[COLS * ROWS];
+    private final boolean[] passable = new boolean[COLS * ROWS];
+    private final int[] queue = new int[COLS * ROWS];
+
+    // 各目标所在的格子和位置
+    private int[] targetCells = new int[1];
+    private int[] targetX = new int[1];
+    private int[] targetY = new int[1];
+    private int targetCount;
+    private TileMap builtTerrain;
+    private int builtChanges;
+    private int rebuildCount;
+
+    // 搜索范围(格, 含两端), 默认整个世界
+    private int col0;
+    private int row0;
+    private int col1 = COLS - 1;
+    private int row1 = ROWS - 1;
+    private boolean boundsChanged;
+
+    // 把搜索范围限制在像素矩形 [left, right) x [top, bottom) 内, 在 update 之前调用
+    public void setBounds(int left, int top, int right, int bottom) {
+        int newCol0 = Math.max(0, left / TileMap.TILE);
+        int newRow0 = Math.max(0, top / TileMap.TILE);
+        int newCol1 = Math.min(COLS - 1, right / TileMap.TILE - 1);
+        int newRow1 = Math.min(ROWS - 1, bottom / TileMap.TILE - 1);
+        if (newCol0 != col0 || newRow0 != row0 || newCol1 != col1 || newRow1 != row1) {
+            col0 = newCol0;
+            row0 = newRow0;
+            col1 = newCol1;
+            row1 = newRow1;
+            boundsChanged = true;
+        }
+    }
+
+    // 每tick在敌人更新之前调用; 敌人更新期间只读, 可以并行查询
+    public void update(List<? extends Tank> targets, TileMap terrain) {
+        boolean moved = targets.size() != targetCount;
+        ensureTargets(targets.size());
+        targetCount = targets.size();
+        for (int k = 0; k < targetCount; k++) {
+            Tank target = targets.get(k);
+            targetX[k] = target.getX();
+            targetY[k] = target.getY();
+            int cell = cellIndex(targetX[k], targetY[k]);
+            if (cell != targetCells[k]) {
+                targetCells[k] = cell;
+                moved = true;
+            }
+        }
+        if (moved || boundsChanged || terrain != builtTerrain || terrain.getChangeCount() != builtChanges) {
+            rebuild(terrain);
+        }
+    }
+
+    // 左上角在(x, y)的坦克朝目标走的方向; 已在目标格或无路可走时直接朝最近的目标, 重合时返回null
+    public Direction directionFrom(int x, int y) {
+        byte step = next[cellIndex(x, y)];
+        if (step >= 0) {
+            return DIRECTIONS[step];
+        }
+        int nearest = 0;
+        long best = Long.MAX_VALUE;
+        for (int k = 0; k < targetCount; k++) {
+            long ddx = targetX[k] - x;
+            long ddy = targetY[k] - y;
+            long distance = ddx * ddx + ddy * ddy;
+            if (distance < best) {
+                best = distance;
+                nearest = k;
+            }
+        }
+        return Direction.of(Integer.signum(targetX[nearest] - x), Integer.signum(targetY[nearest] - y));
+    }
+
+    public int getRebuildCount() {
+        return rebuildCount;
+    }
+
+    // 以单个格子为目标强制重算, 基准测试用
+    void rebuild(int cell, TileMap terrain) {
+        ensureTargets(1);
+        targetCells[0] = cell;
+        targetCount = 1;
+        rebuild(terrain);
+    }
+
+    private void ensureTargets(int count) {
+        if (targetCells.length < count) {
+            targetCells = Arrays.copyOf(targetCells, count);
+            targetX = Arrays.copyOf(targetX, count);
+            targetY = Arrays.copyOf(targetY, count);
+        }
+    }
+
+    private void rebuild(TileMap terrain) {
+        builtTerrain = terrain;
+        builtChanges = terrain.getChangeCount();
+        boundsChanged = false;
+        rebuildCount++;
+
+        for (int row = row0; row <= row1; row++) {
+            for (int col = col0; col <= col1; col++) {
+                passable[row * COLS + col] = !terrain.blocks(col * TileMap.TILE, row * TileMap.TILE,
+                        2 * TileMap.TILE, 2 * TileMap.TILE);
+            }
+        }
+
+        // 所有目标格同时作为起点, 两个目标在同一格时只算一次
+        Arrays.fill(next, UNREACHABLE);
+        int head = 0;
+        int tail = 0;
+        for (int k = 0; k < targetCount; k++) {
+            int cell = targetCells[k];
+            if (next[cell] != AT_TARGET) {
+                next[cell] = AT_TARGET;
+                queue[tail++] = cell;
+            }
+        }
+        while (head < tail) {
+            int current = queue[head++];
+            int col = current % COLS;
+            int row = current / COLS;
+            for (Direction dir : DIRECTIONS) {
+                int nc = col + dir.getDx();
+                int nr = row + dir.getDy();
+                if (nc < col0 || nc > col1 || nr < row0 || nr > row1) {
+                    continue;
+                }
+                int neighbor = nr * COLS + nc;
+                if (next[neighbor] != UNREACHABLE || !passable[neighbor]) {
+                    continue;
+                }
+                // 斜走不能切墙角: 两个相邻的直走格子都要能通过
+                if (dir.getDx() != 0 && dir.getDy() != 0
+                        && (!passable[row * COLS + nc] || !passable[nr * COLS + col])) {
+                    continue;
+                }
+                // 从邻格回到当前格的方向
+                next[neighbor] = (byte) Direction.of(-dir.getDx(), -dir.getDy()).ordinal();
+                queue[tail++] = neighbor;
+            }
+        }
+    }
+
+    // 坦克左上角所在的格子(取最近的格点)
+    static int cellIndex(int x, int y) {
+        int col = Math.max(0, Math.min(COLS - 1, (x + TileMap.TILE / 2) / TileMap.TILE));
+        int row = Math.max(0, Math.min(ROWS - 1, (y + TileMap.TILE / 2) / TileMap.TILE));
+        return row * COLS + col;
+    }
+}
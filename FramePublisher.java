@@ -0,0 +1,53 @@
+// 渲染帧的发布端 - 模拟线程每轮循环调用 publish(), 把世界复制进三缓冲的写缓冲区再交换出去
+// 地形变化和特效事件只带增量, 起点是绘制端已确认收到的位置: 交换时换下来的上一帧如果读过了, 确认位置前进到上一帧的末尾;
+// 如果没读过(被丢弃), 确认位置不动, 之后的帧把它的增量一起带上. 绘制端按序号去重, 重复带上的部分不会接两次, 也不会漏掉
+// 只由模拟线程访问
+class FramePublisher {
+    private final TripleBuffer<RenderFrame> frames;
+    private long sequence;
+
+    // 当前一局的地形和特效日志, 换了就是新的一局
+    private TileMap terrain;
+    private EffectLog effects;
+    private int round;
+
+    // 绘制端已确认收到的位置
+    private int terrainFrom;
+    private long effectsFrom;
+
+    // 上一次发布的帧
+    private int lastRound;
+    private int lastTerrainEnd;
+    private long lastEffectsEnd;
+
+    public FramePublisher(TripleBuffer<RenderFrame> frames) {
+        this.frames = frames;
+    }
+
+    // time: 最新一个tick对应的时刻; samples 为null表示不需要性能统计
+    public void publish(World world, long time, boolean canResume, TickSamples samples) {
+        if (world.getTerrain() != terrain || world.getEffects() != effects) {
+            terrain = world.getTerrain();
+            effects = world.getEffects();
+            round++;
+            terrainFrom = 0;
+            effectsFrom = 0;
+        }
+
+        RenderFrame frame = frames.writeBuffer();
+        frame.capture(world, ++sequence, round, terrainFrom, effectsFrom, time);
+        frame.canResume = canResume;
+        frame.captureStats(world, samples);
+        int terrainEnd = frame.terrainEnd;
+        long effectsEnd = frame.effects.getWritten();
+
+        boolean dropped = frames.publish();
+        if (!dropped && lastRound == round) {
+            terrainFrom = lastTerrainEnd;
+            effectsFrom = lastEffectsEnd;
+        }
+        lastRound = round;
+        lastTerrainEnd = terrainEnd;
+        lastEffectsEnd = effectsEnd;
+    }
+}
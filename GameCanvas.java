@@ -0,0 +1,84 @@
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+// 主动渲染画布 - 独立的渲染线程用三缓冲 BufferStrategy 直接绘制, 不经过 Swing 的 repaint 调度
+// 输入和绘制仍由 GamePanel 提供(模拟在它的模拟线程中), 这里只负责驱动帧和翻页
+class GameCanvas extends Canvas implements Runnable {
+    private static final long serialVersionUID = 1L;
+    private static final int BUFFER_COUNT = 3;
+
+    private final GamePanel game;
+    private final long frameNanos;
+    private volatile boolean running;
+    private Thread renderThread;
+
+    public GameCanvas(GamePanel game) {
+        this.game = game;
+        this.frameNanos = 1_000_000_000L / GamePanel.frameRate();
+
+        setPreferredSize(new Dimension(TankWarGame.WIDTH, TankWarGame.HEIGHT));
+        setBackground(Color.BLACK);
+        setIgnoreRepaint(true);
+        setFocusable(true);
+
+        addKeyListener(game);
+        addMouseListener(game);
+    }
+
+    // 窗口显示后调用, 此时才能创建 BufferStrategy
+    public void start() {
+        createBufferStrategy(BUFFER_COUNT);
+        requestFocus();
+
+        running = true;
+        renderThread = new Thread(this, "render-loop");
+        renderThread.setDaemon(true);
+        renderThread.start();
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        BufferStrategy strategy = getBufferStrategy();
+        long nextFrame = System.nanoTime();
+
+        while (running) {
+            long now = System.nanoTime();
+            game.refreshFrame(now);
+            render(strategy);
+
+            // 按目标帧率等待下一帧; 落后太多时从当前时间重新计
+            nextFrame += frameNanos;
+            long wait = nextFrame - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else if (wait < -frameNanos) {
+                nextFrame = System.nanoTime();
+            }
+        }
+    }
+
+    private void render(BufferStrategy strategy) {
+        // 显存内容可能随时丢失(切换全屏, 锁屏等), 丢失后重画这一帧
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    g.setColor(Color.BLACK);
+                    g.fillRect(0, 0, getWidth(), getHeight());
+                    game.render(g);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+
+            strategy.show();
+        } while (strategy.contentsLost());
+
+        Toolkit.getDefaultToolkit().sync();
+    }
+}
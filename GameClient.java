@@ -0,0 +1,159 @@
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+// 联机客户端连接 - 阻塞式收发: 连上后读 WELCOME, 之后每收到一个快照就回一条输入(同时确认这个快照)
+// 按增量快照和地形变化在本地重建服务器的世界状态, 校验和不符时抛出 IOException
+class GameClient implements Closeable {
+    private final SocketChannel channel;
+    private final SnapshotHistory history = new SnapshotHistory(GameServer.HISTORY);
+    private final int player;
+    private final int tickRate;
+    private final TileMap level;
+    private final TileMap terrain;
+
+    private ByteBuffer in = ByteBuffer.allocate(64 * 1024).flip(); // 两次读取之间是读模式
+    private final ByteBuffer out = ByteBuffer.allocate(32);
+    private final ByteBuffer body = ByteBuffer.allocate(32);
+
+    private long lastTick = -1;
+
+    // 流量统计
+    private long bytesReceived;
+    private long bytesSent;
+    private long snapshots;
+    private long fullSnapshots;
+    private long fullSnapshotBytes;
+
+    public GameClient(InetSocketAddress address) throws IOException {
+        channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+
+        ByteBuffer frame = nextFrame();
+        if (frame.get() != NetProtocol.WELCOME) {
+            throw new IOException("服务器没有先发 WELCOME");
+        }
+        byte[] bytes = new byte[frame.remaining()];
+        frame.get(bytes);
+        DataInputStream welcome = new DataInputStream(new ByteArrayInputStream(bytes));
+        player = (int) VarInt.read(welcome);
+        tickRate = (int) VarInt.read(welcome);
+        if (tickRate != GameConfig.TICK_RATE) {
+            // 快照中子弹的预测位置按tick频率换算, 两边不同时解码出的位置会错
+            throw new IOException("服务器的tick频率为 " + tickRate + ", 请用 -Dtank.tickRate=" + tickRate + " 连接");
+        }
+        level = TileMap.read(welcome);
+        terrain = level.copy();
+    }
+
+    // 阻塞到下一个快照并解码; 返回的快照在 GameServer.HISTORY 个tick之后被覆盖
+    public Snapshot receive() throws IOException {
+        ByteBuffer frame = nextFrame();
+        int size = frame.remaining();
+        int type = frame.get();
+        if (type != NetProtocol.SNAPSHOT) {
+            throw new IOException("未知消息类型: " + type);
+        }
+        boolean full = peekFull(frame);
+        Snapshot snapshot = SnapshotCodec.read(frame, history, terrain, level);
+        lastTick = snapshot.tick;
+        snapshots++;
+        if (full) {
+            fullSnapshots++;
+            fullSnapshotBytes += size;
+        }
+        return snapshot;
+    }
+
+    // 发送本tick的输入, 同时确认 ackTick 及之前的快照已收到
+    public void send(int inputs, long ackTick) throws IOException {
+        body.clear();
+        VarInt.put(body, ackTick);
+        VarInt.put(body, inputs);
+        body.flip();
+        out.clear();
+        NetProtocol.putFrame(out, NetProtocol.INPUT, body);
+        out.flip();
+        while (out.hasRemaining()) {
+            bytesSent += channel.write(out);
+        }
+    }
+
+    // 发送输入并确认最后收到的快照
+    public void send(int inputs) throws IOException {
+        send(inputs, lastTick);
+    }
+
+    // 返回的帧直接引用接收缓冲区, 在下一次调用之前有效
+    private ByteBuffer nextFrame() throws IOException {
+        while (true) {
+            ByteBuffer frame = NetProtocol.nextFrame(in);
+            if (frame != null) {
+                return frame;
+            }
+            in.compact();
+            if (!in.hasRemaining()) {
+                in = NetProtocol.ensureRemaining(in, in.capacity());
+            }
+            int read = channel.read(in);
+            in.flip();
+            if (read < 0) {
+                throw new IOException("服务器断开");
+            }
+            bytesReceived += read;
+        }
+    }
+
+    // 消息体开头是 tick 和基准距离, 基准距离为0是全量快照
+    private static boolean peekFull(ByteBuffer frame) {
+        ByteBuffer peek = frame.duplicate();
+        VarInt.get(peek);
+        return VarInt.get(peek) == 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public int getPlayer() {
+        return player;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    // 按快照重建的当前地形
+    public TileMap getTerrain() {
+        return terrain;
+    }
+
+    public long getLastTick() {
+        return lastTick;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getSnapshots() {
+        return snapshots;
+    }
+
+    public long getFullSnapshots() {
+        return fullSnapshots;
+    }
+
+    public long getFullSnapshotBytes() {
+        return fullSnapshotBytes;
+    }
+}
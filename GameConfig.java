@@ -0,0 +1,115 @@
+import java.nio.file.Paths;
+
+// 游戏配置 - 启动时从系统属性读取, 例如 java -Dtank.collision=brute TankWarGame
+final class GameConfig {
+    // 碰撞检测模式: grid(默认) / brute / verify
+    public static final CollisionMode COLLISION_MODE =
+            CollisionMode.parse(System.getProperty("tank.collision", "grid"));
+
+    // 敌人更新方式: sequential(默认) / parallel
+    public static final UpdateMode UPDATE_MODE =
+            UpdateMode.parse(System.getProperty("tank.enemyUpdate", "sequential"));
+
+    // 关卡: 文件路径, 或类路径 levels/ 下的关卡名; none 为没有墙的空场地
+    public static final String LEVEL = System.getProperty("tank.level", "level1");
+
+    // 蜂群压力模式: 敌人和子弹上限提高到上万, 每次刷新成批生成; 下面三项可以单独覆盖
+    public static final boolean SWARM = Boolean.getBoolean("tank.swarm");
+
+    // 同时存在的敌人上限
+    public static final int MAX_ENEMIES = Math.max(1, Integer.getInteger("tank.maxEnemies", SWARM ? 10_000 : 5));
+
+    // 同时存在的敌人子弹上限, 0 表示按难度
+    public static final int MAX_ENEMY_BULLETS = Math.max(0, Integer.getInteger("tank.maxBullets", SWARM ? 10_000 : 0));
+
+    // 每次刷新生成的敌人数
+    public static final int SPAWN_BATCH = Math.max(1, Integer.getInteger("tank.spawnBatch", SWARM ? 500 : 1));
+
+    // 每tick最多执行的敌人AI决策数, 到期的决策超出时推迟到之后的tick(见 AiScheduler)
+    public static final int AI_BUDGET = Math.max(1, Integer.getInteger("tank.aiBudget", 256));
+
+    // 随机种子, 不指定时每次启动不同
+    public static final long SEED = Long.getLong("tank.seed", System.nanoTime());
+
+    // 录像目录, 设置后每局游戏写一个录像文件; 用 java ReplayRunner <文件> 回放
+    public static final String RECORD_DIR = System.getProperty("tank.record");
+
+    // 录像中每隔多少tick记录一次世界校验和
+    public static final int CHECKSUM_INTERVAL = Math.max(1, Integer.getInteger("tank.checksumInterval", 100));
+
+    // 每秒模拟tick数. 速度、爆炸扩大和开火概率都以100Hz下的每tick值调校, 按实际频率换算(见 perTicks), 游戏节奏不变
+    public static final int TICK_RATE = Math.max(1, Integer.getInteger("tank.tickRate", 100));
+
+    // 一帧内最多追赶的tick数, 超过的积压直接丢弃
+    public static final int MAX_CATCH_UP_TICKS = Math.max(1, Integer.getInteger("tank.maxCatchUp", 5));
+
+    // 渲染方式: passive(默认, Swing repaint) / active(独立线程 + BufferStrategy) / dirty(只重画变化的区域)
+    public static final RenderMode RENDER_MODE =
+            RenderMode.parse(System.getProperty("tank.render", "passive"));
+
+    // 渲染帧率, 0表示跟随显示器刷新率
+    public static final int FRAME_RATE = Integer.getInteger("tank.fps", 0);
+
+    // 启动时显示性能叠加层, 游戏中按 F3 开关
+    public static final boolean PERF_OVERLAY = Boolean.getBoolean("tank.perf");
+
+    // 联机服务器端口和最多玩家数
+    public static final int SERVER_PORT = Integer.getInteger("tank.port", 7777);
+    public static final int MAX_PLAYERS = Math.max(1, Integer.getInteger("tank.maxPlayers", 4));
+
+    // 存档文件, 游戏中定期写入, 下次启动后可以从菜单继续; none 为不存档
+    public static final String SAVE_FILE = System.getProperty("tank.save",
+            Paths.get(System.getProperty("user.home"), ".tankwar", "checkpoint.sav").toString());
+
+    // 游戏中每隔多少秒存档一次
+    public static final int CHECKPOINT_SECONDS = Math.max(1, Integer.getInteger("tank.checkpointSeconds", 5));
+
+    // 世界大小(像素, 宽x高), 默认一屏; 比一屏大时镜头跟随玩家滚动, 例如 -Dtank.worldSize=12800x9600
+    public static final int WORLD_WIDTH = worldSize(0, 800);
+    public static final int WORLD_HEIGHT = worldSize(1, 600);
+
+    // 大世界生成地形用的种子, 同一个种子总是得到同样的世界
+    public static final long WORLD_SEED = Long.getLong("tank.worldSeed", 1);
+
+    // 离玩家几个区块以内完整模拟, 几个区块以内简化模拟, 更远的冻结(区块见 TileMap.CHUNK)
+    public static final int ACTIVE_CHUNKS = Math.max(1, Integer.getInteger("tank.activeChunks", 2));
+    public static final int CHEAP_CHUNKS = Math.max(ACTIVE_CHUNKS, Integer.getInteger("tank.cheapChunks", 4));
+
+    // 地形区块图像缓存的内存预算(MB)
+    public static final int CHUNK_CACHE_MB = Math.max(1, Integer.getInteger("tank.chunkCacheMB", 32));
+
+    // 粒子池容量(爆炸、炮口火光、碎片), 同时存在的粒子不会超过这个数
+    public static final int PARTICLES = Math.max(256, Integer.getInteger("tank.particles", 32_768));
+
+    private GameConfig() {
+    }
+
+    // tank.worldSize 的第 axis 项, 格式不对时用一屏的大小
+    private static int worldSize(int axis, int screen) {
+        String[] parts = System.getProperty("tank.worldSize", "").split("x");
+        if (parts.length != 2) {
+            return screen;
+        }
+        try {
+            return Math.max(screen, Integer.parseInt(parts[axis].trim()));
+        } catch (NumberFormatException e) {
+            return screen;
+        }
+    }
+
+    // 把毫秒换算成tick数
+    public static int ticks(int millis) {
+        return Math.max(1, (int) ((long) millis * TICK_RATE / 1000));
+    }
+
+    // 100Hz 下每tick为 amount 的量(移动的像素等), 从第 from 个tick推进到第 to 个tick(不含)累计的整数值
+    // 累计值按时间取整, 所以每tick的值有时多一有时少一, 但总量与时间成正比; 100Hz 时就是 amount * (to - from)
+    public static int perTicks(int amount, long from, long to) {
+        return (int) (to * amount * 100 / TICK_RATE - Math.max(0, from) * amount * 100 / TICK_RATE);
+    }
+
+    // 第 tick 个tick内推进的量
+    public static int perTick(int amount, long tick) {
+        return perTicks(amount, tick, tick + 1);
+    }
+}
@@ -0,0 +1,133 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Java Flight Recorder 自定义事件, 用于把卡顿和GC、系统噪声对照分析
+// 例如 java -XX:StartFlightRecording=filename=tank.jfr TankWarGame
+// 没有录制时 shouldCommit() 恒为false, 事件对象会被JIT消除, 可以一直保留
+// 都不采集调用栈, 降低录制时的开销
+final class GameEvents {
+    private GameEvents() {
+    }
+
+    @Name("tankwar.Tick")
+    @Label("Tick")
+    @Category("Tank War")
+    @Description("一次 World.step, 持续时间为整个tick")
+    @StackTrace(false)
+    static final class Tick extends Event {
+        @Label("Tick")
+        long tick;
+
+        @Label("Enemies")
+        int enemies;
+
+        @Label("Bullets")
+        int bullets;
+
+        @Label("Explosions")
+        int explosions;
+
+        @Label("Update")
+        @Timespan
+        long updateNanos;
+
+        @Label("Check Collisions")
+        @Timespan
+        long checkCollisionsNanos;
+
+        @Label("Spawn Enemy")
+        @Timespan
+        long spawnEnemyNanos;
+
+        @Label("AI Decisions")
+        int aiDecisions;
+
+        @Label("AI Deferred")
+        @Description("计时已到但超出本tick预算、推迟执行的敌人AI决策数")
+        int aiDeferred;
+    }
+
+    @Name("tankwar.CollisionPass")
+    @Label("Collision Pass")
+    @Category("Tank War")
+    @Description("一次 checkCollisions")
+    @StackTrace(false)
+    static final class CollisionPass extends Event {
+        @Label("Mode")
+        String mode;
+
+        @Label("Enemies")
+        int enemies;
+
+        @Label("Bullets")
+        int bullets;
+
+        @Label("Enemies Hit")
+        int enemiesHit;
+
+        @Label("Player Hit")
+        boolean playerHit;
+    }
+
+    @Name("tankwar.EnemySpawn")
+    @Label("Enemy Spawn")
+    @Category("Tank War")
+    @StackTrace(false)
+    static final class EnemySpawn extends Event {
+        @Label("X")
+        int x;
+
+        @Label("Y")
+        int y;
+
+        @Label("Enemies")
+        int enemies;
+    }
+
+    @Name("tankwar.BulletFire")
+    @Label("Bullet Fire")
+    @Category("Tank War")
+    @StackTrace(false)
+    static final class BulletFire extends Event {
+        @Label("Player")
+        boolean player;
+
+        @Label("X")
+        int x;
+
+        @Label("Y")
+        int y;
+
+        @Label("Direction")
+        String direction;
+
+        @Label("Bullets")
+        int bullets;
+    }
+
+    @Name("tankwar.GameStateChange")
+    @Label("Game State Change")
+    @Category("Tank War")
+    @StackTrace(false)
+    static final class GameStateChange extends Event {
+        @Label("From")
+        String from;
+
+        @Label("To")
+        String to;
+
+        @Label("Tick")
+        long tick;
+
+        @Label("Score")
+        int score;
+
+        @Label("Lives")
+        int lives;
+    }
+}
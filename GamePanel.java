@@ -0,0 +1,206 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+
+// 游戏面板类
+// 只负责输入和绘制: 输入事件放进模拟线程的输入队列, 绘制读取模拟线程发布的最新渲染帧, 游戏规则都在 World 中
+class GamePanel extends JPanel implements ActionListener, KeyListener, MouseListener {
+
+    private final WorldRenderer renderer = new WorldRenderer();
+    private final ScreenLayers layers = new ScreenLayers();
+
+    private Timer timer;
+
+    // JMX统计, 可以一直开着
+    private final GameStats stats = GameStats.register();
+
+    // 模拟在自己的线程里运行, 这里只通过输入队列和渲染帧与它交流
+    private final Simulation simulation = new Simulation(stats);
+    private final InputQueue inputs = simulation.getInputs();
+    private final RenderView view = new RenderView(simulation.getFrames());
+
+    // 性能叠加层, 只在绘制线程中访问(开关除外)
+    private final PerfOverlay perf = new PerfOverlay();
+
+    // 脏矩形模式下记录每帧变化的区域, 其他模式为null
+    private final DirtyRegions dirty = GameConfig.RENDER_MODE == RenderMode.DIRTY ? new DirtyRegions() : null;
+
+    private final long frameNanos = 1_000_000_000L / frameRate();
+
+    // passive: 由 Swing 定时器驱动并通过 repaint() 绘制; 否则由外部渲染循环调用 refreshFrame/render
+    public GamePanel(boolean passive) {
+        initGame(passive);
+    }
+
+    private void initGame(boolean passive) {
+        setBackground(Color.BLACK);
+        setPreferredSize(new Dimension(TankWarGame.WIDTH, TankWarGame.HEIGHT));
+        setFocusable(true);
+
+        addKeyListener(this);
+        addMouseListener(this);
+
+        simulation.start();
+
+        if (passive) {
+            timer = new Timer(Math.max(1, 1000 / frameRate()), this);
+            timer.start();
+        }
+    }
+
+    // 渲染帧率: 优先使用配置的帧率, 否则跟随显示器刷新率
+    static int frameRate() {
+        int fps = GameConfig.FRAME_RATE;
+        if (fps <= 0 && !GraphicsEnvironment.isHeadless()) {
+            fps = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+        }
+        if (fps <= 0) {
+            fps = GameConfig.TICK_RATE;
+        }
+        return fps;
+    }
+
+    // 关闭窗口时停止模拟线程, 它退出前同步写完存档
+    void saveOnExit() {
+        simulation.stop();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Shape clip = dirtyClip(g);
+        if (clip != null) {
+            // 只重画脏格, 背景也只在裁剪区域内清除
+            ((Graphics2D) g).clip(clip);
+            g.setColor(getBackground());
+            g.fillRect(0, 0, TankWarGame.WIDTH, TankWarGame.HEIGHT);
+        } else {
+            super.paintComponent(g);
+        }
+        render(g);
+        if (dirty != null) {
+            repainted(clip != null);
+        }
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    // 本次绘制可以只画脏格时返回裁剪区域; 整屏重画或系统触发的绘制(窗口被遮挡后露出等)超出脏区域时返回null
+    private Shape dirtyClip(Graphics g) {
+        if (dirty == null || dirty.isFull() || dirty.getClip() == null) {
+            return null;
+        }
+        Rectangle requested = g.getClipBounds();
+        return requested != null && dirty.getBounds().contains(requested) ? dirty.getClip() : null;
+    }
+
+    private void repainted(boolean clipped) {
+        perf.recordRepaint(clipped ? dirty.getPixels() : DirtyRegions.getFullPixels());
+        dirty.painted();
+    }
+
+    // 脏矩形模式: 找出这一帧变化的区域并只请求重画它; 没有变化时不重画
+    private void requestRepaint() {
+        if (view.getState() != GameState.PLAYING) {
+            // 菜单和暂停等画面都是一张缓存图, 整屏重画; 回到游戏时也从整屏开始
+            dirty.invalidate();
+            repaint();
+            return;
+        }
+        Rectangle overlay = perf.isVisible() ? perf.getBounds() : null;
+        if (dirty.collect(view, renderer.getParticles(), view.getAlpha(), overlay)) {
+            repaint(dirty.getBounds());
+        }
+    }
+
+    // 绘制一帧, 被动模式由 paintComponent 调用, 主动模式由渲染线程调用
+    void render(Graphics g) {
+        long frameStart = System.nanoTime();
+
+        // 抗锯齿每帧设置一次(坦克精灵已经预先抗锯齿绘制)
+        ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // 菜单、暂停和结束画面都是缓存的图像, 只有游戏进行中才逐帧绘制世界
+        switch (view.getState()) {
+            case MENU:
+                layers.drawMenu(g, view.getDifficulty(), view.canResume());
+                break;
+            case PLAYING:
+                renderer.draw(g, view, view.getAlpha());
+                layers.drawHud(g, view);
+                break;
+            case PAUSED:
+            case GAME_OVER:
+                layers.drawFrozen(g, view, renderer);
+                break;
+        }
+
+        // 叠加层本身的绘制不计入绘制耗时
+        long paintNanos = System.nanoTime() - frameStart;
+        perf.endFrame(frameStart, paintNanos);
+        stats.recordFrame(paintNanos);
+        if (perf.isVisible()) {
+            perf.draw(g, view, renderer, frameNanos, view.getTickNanos());
+        }
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        refreshFrame(System.nanoTime());
+        if (dirty != null) {
+            requestRepaint();
+        } else {
+            repaint();
+        }
+    }
+
+    // 取模拟线程最新发布的一帧, 这一帧的检测脏区域和绘制都用它
+    void refreshFrame(long now) {
+        view.refresh(now);
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        // 性能叠加层, 任何状态下都可以开关; 打开时模拟线程才把tick采样带进渲染帧
+        if (e.getKeyCode() == KeyEvent.VK_F3) {
+            perf.toggle();
+            simulation.setStatsWanted(perf.isVisible());
+            return;
+        }
+        inputs.offerKey(InputQueue.KEY_PRESSED, e.getKeyCode());
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        inputs.offerKey(InputQueue.KEY_RELEASED, e.getKeyCode());
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {
+        // 不需要实现
+    }
+
+    @Override
+    public void mouseClicked(MouseEvent e) {
+        inputs.offerClick(e.getX(), e.getY());
+    }
+
+    @Override
+    public void mousePressed(MouseEvent e) {
+        // 不需要实现
+    }
+
+    @Override
+    public void mouseReleased(MouseEvent e) {
+        // 不需要实现
+    }
+
+    @Override
+    public void mouseEntered(MouseEvent e) {
+        // 不需要实现
+    }
+
+    @Override
+    public void mouseExited(MouseEvent e) {
+        // 不需要实现
+    }
+}
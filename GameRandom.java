@@ -0,0 +1,62 @@
+import java.util.Random;
+
+// 可存档的随机数 - 与 java.util.Random 用同一个线性同余公式, 产生完全相同的序列, 但内部状态可以读出和恢复
+// 每个实例只由一个线程使用, 所以不需要 Random 内部的原子操作
+// 敌人的随机序列不用对象, 状态存在 long 数组里, 用下面的静态方法按同一公式推进(见 EnemyPool)
+class GameRandom extends Random {
+    private static final long serialVersionUID = 1L;
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    static final long MASK = (1L << 48) - 1;
+
+    // 不能写初始值: 父类构造函数会先调用 setSeed
+    private long state;
+
+    public GameRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state & MASK;
+    }
+
+    // 种子对应的初始状态, 与 new GameRandom(seed).getState() 相同
+    static long initialState(long seed) {
+        return (seed ^ MULTIPLIER) & MASK;
+    }
+
+    // 推进 states[i] 并返回 [0, bound) 内的数, 与对同样状态调用 Random.nextInt(bound) 结果相同
+    static int nextInt(long[] states, int i, int bound) {
+        int r = next31(states, i);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31);
+        }
+        for (int u = r; u - (r = u % bound) + m < 0; u = next31(states, i)) {
+            // 拒绝落在最后一段不完整区间里的数, 保持均匀
+        }
+        return r;
+    }
+
+    private static int next31(long[] states, int i) {
+        long next = (states[i] * MULTIPLIER + ADDEND) & MASK;
+        states[i] = next;
+        return (int) (next >>> (48 - 31));
+    }
+}
@@ -0,0 +1,361 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+// 联机服务器 - 权威模拟: 所有客户端共用服务器上的同一个 World, 客户端只发输入, 服务器每tick回发快照
+// 单线程: 一个 java.nio Selector 处理所有连接的收发, 两次 select 之间按固定步长推进世界
+// 快照相对每个客户端最后确认的tick做增量编码; 客户端来不及接收时跳过快照, 不在服务器积压
+// 玩家断开后坦克留在场上不动, 下一个连上来的客户端接手; 游戏结束后过几秒自动开始下一局
+// 用法: java GameServer [端口]
+class GameServer implements Runnable, Closeable {
+    // 服务器与客户端各保存的快照数, 确认的tick更早时发全量
+    static final int HISTORY = 64;
+
+    // 连接中未发出的数据超过这个值时不再给它发新快照
+    private static final int MAX_PENDING_BYTES = 256 * 1024;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final World world;
+    private final Connection[] slots;
+    private final int[] inputs;
+    private final SnapshotHistory history = new SnapshotHistory(HISTORY);
+    private final long tickNanos;
+    private final int restartTicks = GameConfig.ticks(3000);
+
+    private ByteBuffer body = ByteBuffer.allocate(4096);
+    private long serverTick;
+    private int round;
+    private long gameOverTick = -1;
+    private volatile boolean running = true;
+
+    // 每tick的耗时: 推进世界, 以及给所有客户端编码和发送快照
+    private final SampleRing simulationNanos = new SampleRing(4096);
+    private final SampleRing snapshotNanos = new SampleRing(4096);
+    private long fullSnapshots;
+    private long deltaSnapshots;
+    private long skippedSnapshots;
+
+    // port 为0时由系统分配端口; world 由服务器线程独占
+    public GameServer(int port, World world, int maxPlayers) throws IOException {
+        this.world = world;
+        this.slots = new Connection[maxPlayers];
+        this.inputs = new int[maxPlayers];
+        this.tickNanos = 1_000_000_000L / GameConfig.TICK_RATE;
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        world.start();
+        long nextTick = System.nanoTime() + tickNanos;
+        try {
+            while (running) {
+                long wait = nextTick - System.nanoTime();
+                if (wait > 0) {
+                    selector.select((wait + 999_999) / 1_000_000);
+                } else {
+                    selector.selectNow();
+                }
+                handleKeys();
+
+                // 与客户端渲染相同的追赶规则: 落后太多时丢弃积压
+                int ticks = 0;
+                while (System.nanoTime() >= nextTick && ticks < GameConfig.MAX_CATCH_UP_TICKS) {
+                    tick();
+                    nextTick += tickNanos;
+                    ticks++;
+                }
+                if (System.nanoTime() - nextTick > tickNanos) {
+                    nextTick = System.nanoTime() + tickNanos;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("服务器出错: " + e.getMessage());
+        } finally {
+            closeQuietly();
+        }
+    }
+
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private void handleKeys() throws IOException {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isReadable()) {
+                    connection.read();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    connection.flush();
+                }
+            } catch (IOException | RuntimeException e) {
+                // 客户端断开或发来错误数据, 只关闭这一个连接
+                disconnect(connection, e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        int slot = freeSlot();
+        if (slot < 0) {
+            System.err.println("玩家已满, 拒绝 " + channel.getRemoteAddress());
+            channel.close();
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        while (world.getPlayers().size() <= slot) {
+            world.addPlayer();
+        }
+
+        Connection connection = new Connection(channel, slot);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        slots[slot] = connection;
+        System.out.println("玩家 " + (slot + 1) + " 加入: " + channel.getRemoteAddress());
+        try {
+            connection.send(NetProtocol.WELCOME, NetProtocol.welcome(slot, GameConfig.TICK_RATE, world.getLevel()));
+        } catch (IOException e) {
+            disconnect(connection, e.getMessage());
+        }
+    }
+
+    private int freeSlot() {
+        for (int k = 0; k < slots.length; k++) {
+            if (slots[k] == null) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private void disconnect(Connection connection, String reason) {
+        if (slots[connection.slot] == connection) {
+            slots[connection.slot] = null;
+        }
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException ignored) {
+            // 已经断开
+        }
+        System.out.println("玩家 " + (connection.slot + 1) + " 断开" + (reason != null ? ": " + reason : ""));
+    }
+
+    private void tick() {
+        long start = System.nanoTime();
+        for (int k = 0; k < slots.length; k++) {
+            inputs[k] = slots[k] != null ? slots[k].takeInputs() : 0;
+        }
+        world.step(inputs);
+        serverTick++;
+
+        if (world.getState() == GameState.GAME_OVER) {
+            if (gameOverTick < 0) {
+                gameOverTick = serverTick;
+            } else if (serverTick - gameOverTick >= restartTicks) {
+                world.start();
+                round++;
+                gameOverTick = -1;
+            }
+        }
+        long stepped = System.nanoTime();
+
+        Snapshot snapshot = history.slot(serverTick);
+        snapshot.capture(world, serverTick, round);
+        for (Connection connection : slots) {
+            if (connection != null) {
+                sendSnapshot(connection, snapshot);
+            }
+        }
+        long sent = System.nanoTime();
+
+        simulationNanos.add(stepped - start);
+        snapshotNanos.add(sent - stepped);
+    }
+
+    private void sendSnapshot(Connection connection, Snapshot snapshot) {
+        if (connection.pendingBytes() > MAX_PENDING_BYTES) {
+            skippedSnapshots++;
+            return;
+        }
+        Snapshot base = null;
+        if (connection.ackTick >= 0 && serverTick - connection.ackTick < HISTORY) {
+            base = history.get(connection.ackTick);
+        }
+
+        body.clear();
+        body = NetProtocol.ensureRemaining(body, SnapshotCodec.maxSize(snapshot, base));
+        SnapshotCodec.write(body, snapshot, base, world.getTerrain());
+        body.flip();
+        if (base == null || base.round != snapshot.round) {
+            fullSnapshots++;
+        } else {
+            deltaSnapshots++;
+        }
+        try {
+            connection.send(NetProtocol.SNAPSHOT, body);
+        } catch (IOException e) {
+            disconnect(connection, e.getMessage());
+        }
+    }
+
+    private void closeQuietly() {
+        for (Connection connection : slots) {
+            if (connection != null) {
+                disconnect(connection, null);
+            }
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException ignored) {
+            // 正在退出
+        }
+    }
+
+    public SampleRing getSimulationNanos() {
+        return simulationNanos;
+    }
+
+    public SampleRing getSnapshotNanos() {
+        return snapshotNanos;
+    }
+
+    public long getServerTick() {
+        return serverTick;
+    }
+
+    public long getFullSnapshots() {
+        return fullSnapshots;
+    }
+
+    public long getDeltaSnapshots() {
+        return deltaSnapshots;
+    }
+
+    // 客户端来不及接收而跳过的快照数
+    public long getSkippedSnapshots() {
+        return skippedSnapshots;
+    }
+
+    // 一个客户端连接: 收到的输入, 以及尚未写出的数据
+    private final class Connection {
+        final SocketChannel channel;
+        final int slot;
+        SelectionKey key;
+
+        private ByteBuffer in = ByteBuffer.allocate(1024);
+        private ByteBuffer out = ByteBuffer.allocate(16 * 1024); // 写模式
+
+        long ackTick = -1;
+        private int heldInputs;   // 最近一次的方向键
+        private int pendingFire;  // 两个tick之间按过开火就开一次
+
+        Connection(SocketChannel channel, int slot) {
+            this.channel = channel;
+            this.slot = slot;
+        }
+
+        int takeInputs() {
+            int result = heldInputs | pendingFire;
+            pendingFire = 0;
+            return result;
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                throw new IOException("连接关闭");
+            }
+            in.flip();
+            ByteBuffer frame;
+            while ((frame = NetProtocol.nextFrame(in)) != null) {
+                int type = frame.get();
+                if (type != NetProtocol.INPUT) {
+                    throw new IOException("未知消息类型: " + type);
+                }
+                long ack = VarInt.get(frame);
+                int bits = (int) VarInt.get(frame);
+                // 确认只会前进; 不认识的tick(太新)当作错误数据
+                if (ack > serverTick) {
+                    throw new IOException("确认了未发送的tick: " + ack);
+                }
+                ackTick = Math.max(ackTick, ack);
+                heldInputs = bits & ~World.INPUT_FIRE;
+                pendingFire |= bits & World.INPUT_FIRE;
+            }
+            in.compact();
+            if (!in.hasRemaining()) {
+                in = NetProtocol.ensureRemaining(in, in.capacity());
+            }
+        }
+
+        void send(int type, ByteBuffer body) throws IOException {
+            out = NetProtocol.ensureRemaining(out, NetProtocol.frameSize(body.remaining()));
+            NetProtocol.putFrame(out, type, body);
+            flush();
+        }
+
+        // 尽量写出, 写不完的等通道可写时继续
+        void flush() throws IOException {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            int interest = out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+            if (key.interestOps() != interest) {
+                key.interestOps(interest);
+            }
+        }
+
+        int pendingBytes() {
+            return out.position();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : GameConfig.SERVER_PORT;
+        World world = new World(GameConfig.SEED);
+        world.setLevel(TileMap.load(GameConfig.LEVEL));
+        try (GameServer server = new GameServer(port, world, GameConfig.MAX_PLAYERS)) {
+            System.out.println("服务器在端口 " + server.getPort() + " 运行, 最多 " + GameConfig.MAX_PLAYERS + " 个玩家");
+            server.run();
+        }
+    }
+}
@@ -0,0 +1,4 @@
+// 游戏状态枚举
+enum GameState {
+    MENU, PLAYING, PAUSED, GAME_OVER
+}
@@ -0,0 +1,158 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// 游戏运行统计 - 模拟线程每tick写入tick和世界状态的字段, 绘制线程每帧写入帧的字段, JMX线程读取
+// 每个字段只有一个写线程, 用volatile字段发布即可, 不需要加锁(volatile long 的读写在32位JVM上也不会被拆成两半);
+// 各阶段累计耗时是数组, 数组元素不能声明为volatile, 放在 AtomicLongArray 中, 只用 get/set, 单写线程不需要CAS
+class GameStats implements GameStatsMBean {
+    private static final String OBJECT_NAME = "tankwar:type=GameStats";
+
+    // 实测tick频率的最短统计窗口, 两次读取间隔更短时返回上一个窗口的结果
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+
+    private volatile long tickCount;
+    private volatile long frameCount;
+    private volatile GameState state = GameState.MENU;
+    private volatile Difficulty difficulty = Difficulty.MEDIUM;
+    private volatile int enemyCount;
+    private volatile int bulletCount;
+    private volatile int explosionCount;
+    private final AtomicLongArray phaseNanos = new AtomicLongArray(TickPhase.COUNT);
+    private volatile long paintNanos;
+    private volatile long aiDecisions;
+    private volatile long aiDeferred;
+
+    // 实测tick频率的统计窗口, 只由读取的JMX线程访问(方法加锁)
+    private long rateWindowStart = System.nanoTime();
+    private long rateWindowTicks;
+    private double measuredTickRate;
+
+    // 注册到平台 MBeanServer, 失败时只打印警告, 不影响游戏
+    public static GameStats register() {
+        GameStats stats = new GameStats();
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(stats, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.err.println("无法注册JMX统计: " + e);
+        }
+        return stats;
+    }
+
+    // 每次 world.step() 之后调用
+    public void recordTick(World world) {
+        for (int p = 0; p < TickPhase.COUNT; p++) {
+            phaseNanos.set(p, phaseNanos.get(p) + world.getPhaseNanos(TickPhase.ALL[p]));
+        }
+        aiDecisions += world.getAiScheduler().getDecisions();
+        aiDeferred += world.getAiScheduler().getDeferred();
+        tickCount++;
+        publish(world);
+    }
+
+    // 每帧绘制之后调用
+    public void recordFrame(long nanos) {
+        paintNanos += nanos;
+        frameCount++;
+    }
+
+    // 发布世界状态, 模拟线程在每个tick之后和不推进模拟时调用
+    public void publish(World world) {
+        state = world.getState();
+        difficulty = world.getDifficulty();
+        if (world.getEnemies() != null) {
+            enemyCount = world.getEnemies().size();
+            bulletCount = world.getBullets().size();
+            explosionCount = world.getExplosions().size();
+        }
+    }
+
+    // 由tick计数在统计窗口内的增量算出, 暂停或在菜单时为0
+    @Override
+    public synchronized double getTickRate() {
+        long now = System.nanoTime();
+        long elapsed = now - rateWindowStart;
+        if (elapsed >= RATE_WINDOW_NANOS) {
+            long ticks = tickCount;
+            measuredTickRate = (ticks - rateWindowTicks) * 1e9 / elapsed;
+            rateWindowStart = now;
+            rateWindowTicks = ticks;
+        }
+        return measuredTickRate;
+    }
+
+    @Override
+    public int getConfiguredTickRate() {
+        return GameConfig.TICK_RATE;
+    }
+
+    @Override
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    @Override
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public String getState() {
+        return state.name();
+    }
+
+    @Override
+    public String getDifficulty() {
+        return difficulty.name();
+    }
+
+    @Override
+    public int getEnemyCount() {
+        return enemyCount;
+    }
+
+    @Override
+    public int getBulletCount() {
+        return bulletCount;
+    }
+
+    @Override
+    public int getExplosionCount() {
+        return explosionCount;
+    }
+
+    @Override
+    public long getUpdateNanos() {
+        return phaseTotal(TickPhase.UPDATE);
+    }
+
+    @Override
+    public long getCheckCollisionsNanos() {
+        return phaseTotal(TickPhase.CHECK_COLLISIONS);
+    }
+
+    @Override
+    public long getSpawnEnemyNanos() {
+        return phaseTotal(TickPhase.SPAWN_ENEMY);
+    }
+
+    @Override
+    public long getPaintNanos() {
+        return paintNanos;
+    }
+
+    @Override
+    public long getAiDecisions() {
+        return aiDecisions;
+    }
+
+    @Override
+    public long getAiDeferred() {
+        return aiDeferred;
+    }
+
+    private long phaseTotal(TickPhase phase) {
+        return phaseNanos.get(phase.ordinal());
+    }
+}
@@ -0,0 +1,35 @@
+// 游戏运行统计的JMX接口(标准MBean要求接口为public), 对象名 tankwar:type=GameStats
+public interface GameStatsMBean {
+    // 实测的每秒tick数(最近至少1秒的平均), 模拟跟不上时低于设定值
+    double getTickRate();
+
+    int getConfiguredTickRate();
+
+    long getTickCount();
+
+    long getFrameCount();
+
+    String getState();
+
+    String getDifficulty();
+
+    int getEnemyCount();
+
+    int getBulletCount();
+
+    int getExplosionCount();
+
+    // 启动以来各阶段的累计耗时(纳秒)
+    long getUpdateNanos();
+
+    long getCheckCollisionsNanos();
+
+    long getSpawnEnemyNanos();
+
+    long getPaintNanos();
+
+    // 启动以来执行的和因超出每tick预算而推迟的敌人AI决策数
+    long getAiDecisions();
+
+    long getAiDeferred();
+}
@@ -0,0 +1,81 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+// 输入队列 - 单生产者单消费者的无锁环形队列: EDT 的键盘和鼠标监听器放入, 模拟线程每轮循环取空
+// 每个事件编码成一个 long(高32位为种类, 低32位为键码或 x << 16 | y), 放入和取出都不分配, 也不加锁;
+// 只有生产者写 tail、只有消费者写 head, 用 release 写和 acquire 读在两个线程之间发布槽位里的事件
+class InputQueue {
+    static final int KEY_PRESSED = 0;
+    static final int KEY_RELEASED = 1;
+    static final int MOUSE_CLICKED = 2;
+
+    // 队列为空时 poll() 的返回值, 正常事件的种类非负, 不会等于它
+    static final long EMPTY = -1;
+
+    private final long[] events;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // 下一个要取的序号, 只由消费者写
+    private final AtomicLong tail = new AtomicLong(); // 下一个要放的序号, 只由生产者写
+
+    // 各自缓存对方的位置, 只有看起来满了(或空了)时才重新读对方的原子变量
+    private long cachedHead;
+    private long cachedTail;
+
+    // capacity 向上取为2的幂
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        events = new long[size];
+        mask = size - 1;
+    }
+
+    public boolean offerKey(int kind, int keyCode) {
+        return offer((long) kind << 32 | (keyCode & 0xFFFFFFFFL));
+    }
+
+    public boolean offerClick(int x, int y) {
+        return offer((long) MOUSE_CLICKED << 32 | (x & 0xFFFF) << 16 | (y & 0xFFFF));
+    }
+
+    // 生产者线程调用; 满了返回false, 事件被丢弃(模拟线程每个tick都会取空, 正常不会满)
+    private boolean offer(long event) {
+        long t = tail.getPlain();
+        if (t - cachedHead >= events.length) {
+            cachedHead = head.getAcquire();
+            if (t - cachedHead >= events.length) {
+                return false;
+            }
+        }
+        events[(int) t & mask] = event;
+        tail.setRelease(t + 1);
+        return true;
+    }
+
+    // 消费者线程调用, 取出最早的事件; 没有时返回 EMPTY
+    public long poll() {
+        long h = head.getPlain();
+        if (h == cachedTail) {
+            cachedTail = tail.getAcquire();
+            if (h == cachedTail) {
+                return EMPTY;
+            }
+        }
+        long event = events[(int) h & mask];
+        head.setRelease(h + 1);
+        return event;
+    }
+
+    public static int kind(long event) {
+        return (int) (event >>> 32);
+    }
+
+    public static int keyCode(long event) {
+        return (int) event;
+    }
+
+    public static int x(long event) {
+        return (int) event >>> 16;
+    }
+
+    public static int y(long event) {
+        return (int) event & 0xFFFF;
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// 输入录像 - 记录一局游戏的种子和每个tick的输入, 用于之后无界面全速回放
+//
+// 文件格式:
+//   头部: 魔数 "TWR1", 版本, tick频率, 难度, 本局种子, 校验间隔, 关卡地形(见 TileMap.write),
+//         敌人上限, 敌人子弹上限, 每次生成数, 每tick的AI决策预算, 敌人生成间隔和开火频率(0 为按难度),
+//         完整模拟和简化模拟的区块半径, 简化模拟的更新间隔, 屏幕外AI决策间隔的倍数(见 ActiveRegion, AiScheduler)
+//   记录: 变长整数 tag = (距上一条记录的tick数 << 2) | 类型, 后面跟随该类型的数据
+//     INPUT    输入发生变化, 数据为与上一次输入的异或值(变长整数)
+//     CHECKSUM 该tick结束后的世界校验和(8字节)
+//     END      录像结束
+// 输入不变的tick不写任何内容, 一局几分钟的游戏通常只有几KB
+class InputRecorder implements Closeable {
+    static final int MAGIC = 0x54575231; // "TWR1"
+    static final int VERSION = 7;
+
+    static final int KIND_INPUT = 0;
+    static final int KIND_CHECKSUM = 1;
+    static final int KIND_END = 2;
+
+    private final DataOutputStream out;
+    private final int checksumInterval;
+    private long lastRecordTick;
+    private int lastInputs;
+
+    // 在 world.start() 之后创建
+    public InputRecorder(OutputStream stream, World world, int checksumInterval) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(stream));
+        this.checksumInterval = checksumInterval;
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        VarInt.write(out, GameConfig.TICK_RATE);
+        VarInt.write(out, world.getDifficulty().ordinal());
+        out.writeLong(world.getGameSeed());
+        VarInt.write(out, checksumInterval);
+        world.getLevel().write(out);
+        VarInt.write(out, world.getMaxEnemies());
+        VarInt.write(out, world.getMaxEnemyBullets());
+        VarInt.write(out, world.getSpawnBatch());
+        VarInt.write(out, world.getAiBudget());
+        VarInt.write(out, world.getEnemySpawnRate());
+        VarInt.write(out, world.getEnemyFireRate());
+        VarInt.write(out, GameConfig.ACTIVE_CHUNKS);
+        VarInt.write(out, GameConfig.CHEAP_CHUNKS);
+        VarInt.write(out, ActiveRegion.CHEAP_INTERVAL);
+        VarInt.write(out, AiScheduler.FAR_SCALE);
+    }
+
+    // 在 world.step(inputs) 之前调用
+    public void recordInputs(long tick, int inputs) throws IOException {
+        if (inputs != lastInputs) {
+            writeTag(tick, KIND_INPUT);
+            VarInt.write(out, inputs ^ lastInputs);
+            lastInputs = inputs;
+        }
+    }
+
+    // 在 world.step(inputs) 之后调用, 每隔 checksumInterval 个tick记一次校验和
+    public void recordState(World world) throws IOException {
+        long tick = world.getTickCount();
+        if (tick % checksumInterval == 0) {
+            writeTag(tick, KIND_CHECKSUM);
+            out.writeLong(world.checksum());
+        }
+    }
+
+    // 写入结束标记并关闭, tick为最后一个tick之后的tick数
+    public void finish(long tick) throws IOException {
+        writeTag(tick, KIND_END);
+        close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeTag(long tick, int kind) throws IOException {
+        VarInt.write(out, (tick - lastRecordTick) << 2 | kind);
+        lastRecordTick = tick;
+    }
+}
@@ -0,0 +1,117 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+// 联机回环测试 - 在本机启动服务器和若干机器人客户端, 运行一段时间后报告每个客户端的带宽和服务器每tick的耗时
+// 客户端按增量快照重建世界并逐个核对校验和, 出现不一致、断开或没有收到快照时以状态1退出
+// 最后一个客户端每隔 LAGGY_ACK_INTERVAL 个tick才确认一次, 模拟延迟较大的连接, 增量基准更旧
+// 用法: java LoopbackCheck [客户端数] [秒数]
+class LoopbackCheck {
+    private static final int LAGGY_ACK_INTERVAL = 8;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        World world = new World(42);
+        world.setLevel(TileMap.load(GameConfig.LEVEL));
+        world.setStartingLives(Integer.MAX_VALUE); // 测的是联机, 机器人乱打也不会结束
+        GameServer server = new GameServer(0, world, clients);
+        Thread serverThread = new Thread(server, "game-server");
+        serverThread.start();
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+
+        Bot[] bots = new Bot[clients];
+        Thread[] threads = new Thread[clients];
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        for (int k = 0; k < clients; k++) {
+            bots[k] = new Bot(address, k, k == clients - 1 && clients > 1, deadline);
+            threads[k] = new Thread(bots[k], "bot-" + k);
+            threads[k].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        server.stop();
+        serverThread.join();
+
+        boolean failed = false;
+        System.out.printf("回环测试: %d 个客户端, %d 秒, %d tick, 关卡 %s%n", clients, seconds, server.getServerTick(),
+                GameConfig.LEVEL);
+        for (Bot bot : bots) {
+            GameClient client = bot.client;
+            if (bot.error != null || client == null || client.getSnapshots() == 0) {
+                System.err.println("客户端 " + bot.index + " 失败: " + (bot.error != null ? bot.error : "没有收到快照"));
+                failed = true;
+                continue;
+            }
+            System.out.printf("客户端 %d%s: 下行 %.1f KB/s, 上行 %.1f KB/s; %d 个快照(全量 %d), 平均 %d B, 同样的快照全量编码平均 %d B%n",
+                    bot.index, bot.laggy ? "(每" + LAGGY_ACK_INTERVAL + "tick确认)" : "",
+                    client.getBytesReceived() / 1024.0 / seconds, client.getBytesSent() / 1024.0 / seconds,
+                    client.getSnapshots(), client.getFullSnapshots(), client.getBytesReceived() / client.getSnapshots(),
+                    bot.fullBytes / client.getSnapshots());
+        }
+
+        SampleRing simulation = server.getSimulationNanos();
+        SampleRing snapshots = server.getSnapshotNanos();
+        simulation.sortSamples();
+        snapshots.sortSamples();
+        System.out.printf("服务器每tick: 模拟 p50 %.3f ms p99 %.3f ms; 快照编码发送 p50 %.3f ms p99 %.3f ms%n",
+                simulation.percentile(50) / 1e6, simulation.percentile(99) / 1e6,
+                snapshots.percentile(50) / 1e6, snapshots.percentile(99) / 1e6);
+        System.out.printf("服务器快照: 增量 %d, 全量 %d, 因客户端积压跳过 %d%n",
+                server.getDeltaSnapshots(), server.getFullSnapshots(), server.getSkippedSnapshots());
+
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    // 随机操作的机器人: 每收到一个快照回一条输入
+    private static class Bot implements Runnable {
+        final int index;
+        final boolean laggy;
+        final long deadline;
+        final InetSocketAddress address;
+        GameClient client;
+        volatile String error;
+        long fullBytes; // 每个快照都按全量编码时的总字节数, 用来和实际流量对比
+
+        Bot(InetSocketAddress address, int index, boolean laggy, long deadline) {
+            this.address = address;
+            this.index = index;
+            this.laggy = laggy;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            Random random = new Random(index);
+            int keys = 0;
+            long acked = -1;
+            ByteBuffer scratch = ByteBuffer.allocate(4096);
+            try (GameClient client = new GameClient(address)) {
+                this.client = client;
+                while (System.nanoTime() < deadline) {
+                    Snapshot snapshot = client.receive();
+                    scratch.clear();
+                    scratch = NetProtocol.ensureRemaining(scratch, SnapshotCodec.maxSize(snapshot, null));
+                    SnapshotCodec.write(scratch, snapshot, null, client.getTerrain());
+                    fullBytes += VarInt.size(scratch.position() + 1) + scratch.position() + 1;
+                    if (random.nextInt(50) == 0) {
+                        keys = random.nextInt(16);
+                    }
+                    int inputs = keys | (random.nextInt(20) == 0 ? World.INPUT_FIRE : 0);
+                    if (!laggy || snapshot.tick % LAGGY_ACK_INTERVAL == 0) {
+                        acked = snapshot.tick;
+                    }
+                    client.send(inputs, acked);
+                }
+            } catch (IOException e) {
+                error = e.getMessage();
+            }
+        }
+    }
+}
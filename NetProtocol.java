@@ -0,0 +1,77 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+// 联机协议 - TCP 上的消息帧: 变长整数长度 + 1字节消息类型 + 消息体, 长度包含类型字节
+//
+//   WELCOME  服务器 -> 客户端, 连接后发一次: 玩家序号, tick频率, 关卡地形(见 TileMap.write)
+//   SNAPSHOT 服务器 -> 客户端, 每tick一次: 见 SnapshotCodec
+//   INPUT    客户端 -> 服务器, 每tick一次: 最后收到的快照tick(确认), 输入位(World.INPUT_*)
+final class NetProtocol {
+    static final int WELCOME = 1;
+    static final int SNAPSHOT = 2;
+    static final int INPUT = 3;
+
+    // 单帧上限, 超过时认为连接出错; 蜂群规模的全量快照也远小于这个值
+    static final int MAX_FRAME = 4 << 20;
+
+    private NetProtocol() {
+    }
+
+    // 写入一帧, body 从 position 到 limit 为消息体
+    public static void putFrame(ByteBuffer out, int type, ByteBuffer body) {
+        VarInt.put(out, body.remaining() + 1);
+        out.put((byte) type);
+        out.put(body);
+    }
+
+    // 一帧最多占用的字节数
+    public static int frameSize(int bodySize) {
+        return bodySize + 6;
+    }
+
+    // 从读模式的 in 中取出下一帧(类型 + 消息体), 数据不完整时返回 null 且不移动位置
+    public static ByteBuffer nextFrame(ByteBuffer in) throws IOException {
+        int start = in.position();
+        long length;
+        try {
+            length = VarInt.get(in);
+        } catch (BufferUnderflowException e) {
+            in.position(start);
+            return null;
+        }
+        if (length < 1 || length > MAX_FRAME) {
+            throw new IOException("消息长度错误: " + length);
+        }
+        if (in.remaining() < length) {
+            in.position(start);
+            return null;
+        }
+        ByteBuffer frame = in.slice(in.position(), (int) length);
+        in.position(in.position() + (int) length);
+        return frame;
+    }
+
+    // 保证 buffer 还能写入 size 字节, 不够时换成更大的缓冲区(写模式)
+    public static ByteBuffer ensureRemaining(ByteBuffer buffer, int size) {
+        if (buffer.remaining() >= size) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    public static ByteBuffer welcome(int player, int tickRate, TileMap level) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        VarInt.write(out, player);
+        VarInt.write(out, tickRate);
+        level.write(out);
+        out.flush();
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+}
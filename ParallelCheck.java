@@ -0,0 +1,62 @@
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// 并行更新检查 - 同一个种子的两个世界, 一个逐个更新敌人, 一个按块交给 fork-join 线程池并行更新,
+// 输入相同的按键, 每个tick核对校验和; 不一致, 或者敌人数始终不够分成多块(并行没有真正发生)时以状态1退出
+// 线程池为公共池, 并行度用 -Djava.util.concurrent.ForkJoinPool.common.parallelism 指定
+// 用法: java ParallelCheck [敌人数] [tick数]
+class ParallelCheck {
+    public static void main(String[] args) throws IOException {
+        int enemies = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 3000;
+
+        TileMap level = TileMap.load(GameConfig.LEVEL);
+        World sequential = newWorld(enemies, level, UpdateMode.SEQUENTIAL);
+        World parallel = newWorld(enemies, level, UpdateMode.PARALLEL);
+
+        Random keys = new Random(7);
+        int held = 0;
+        int maxEnemies = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            // 方向键每隔一段时间换一次, 每隔几个tick开火
+            if (i % 50 == 0) {
+                held = 1 << keys.nextInt(4);
+            }
+            int inputs = held | (i % 5 == 0 ? World.INPUT_FIRE : 0);
+            sequential.step(inputs);
+            parallel.step(inputs);
+            if (parallel.checksum() != sequential.checksum() || parallel.getState() != sequential.getState()) {
+                fail("第 " + (i + 1) + " 个tick校验和不一致, 敌人 " + sequential.getEnemies().size()
+                        + " / " + parallel.getEnemies().size());
+            }
+            maxEnemies = Math.max(maxEnemies, sequential.getEnemies().size());
+        }
+        System.out.printf("并行与逐个更新一致: %d tick (%.1f s), 最多 %d 个敌人, 线程池并行度 %d, 得分 %d%n",
+                ticks, (System.nanoTime() - start) / 1e9, maxEnemies,
+                ForkJoinPool.getCommonPoolParallelism(), sequential.getScore());
+
+        if (maxEnemies <= EnemyUpdater.CHUNK_SIZE) {
+            fail("敌人数没有超过一块(" + EnemyUpdater.CHUNK_SIZE + "), 并行更新没有真正分块");
+        }
+    }
+
+    private static World newWorld(int enemies, TileMap level, UpdateMode mode) {
+        World world = new World(42);
+        world.setUpdateMode(mode);
+        world.setMaxEnemies(enemies);
+        world.setMaxEnemyBullets(enemies);
+        world.setSpawnBatch(Math.max(1, enemies / 10));
+        world.setStartingLives(Integer.MAX_VALUE); // 核对的是更新结果, 不让一局中途结束
+        world.setDifficulty(Difficulty.HARD);
+        world.setLevel(level);
+        world.start();
+        return world;
+    }
+
+    private static void fail(String message) {
+        System.err.println("检查失败: " + message);
+        System.exit(1);
+    }
+}
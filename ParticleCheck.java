@@ -0,0 +1,86 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+// 粒子检查 - 无界面地让粒子池一直处于满载: 每tick在屏幕各处产生大量爆炸、开火和碎片事件, 推进粒子并画一帧到离屏图像
+// 报告存活粒子数、被丢弃的粒子数、推进和绘制的耗时; 预热后推进粒子(含发射)时有内存分配, 或存活粒子超过容量时以状态1退出
+// 用法: java ParticleCheck [每tick爆炸数] [tick数]
+class ParticleCheck {
+    private static final int WARMUP_TICKS = 2000;
+
+    public static void main(String[] args) {
+        int explosionsPerTick = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        EffectLog log = new EffectLog(4096);
+        ParticleSystem particles = new ParticleSystem(GameConfig.PARTICLES);
+        Camera camera = new Camera();
+        BufferedImage frame = new BufferedImage(World.VIEW_WIDTH, World.VIEW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Direction[] directions = Direction.values();
+        GameRandom random = new GameRandom(42);
+
+        SampleRing advanceTimes = new SampleRing(ticks);
+        SampleRing drawTimes = new SampleRing(ticks);
+        long allocated = 0;
+        int maxLive = 0;
+        for (int t = 0; t < WARMUP_TICKS + ticks; t++) {
+            // 每次爆炸伴随几次开火和打在墙上
+            for (int k = 0; k < explosionsPerTick; k++) {
+                int x = random.nextInt(World.VIEW_WIDTH);
+                int y = random.nextInt(World.VIEW_HEIGHT);
+                Direction dir = directions[random.nextInt(directions.length)];
+                log.add(EffectLog.EXPLOSION, x, y, dir);
+                log.add(EffectLog.MUZZLE, x, y, dir);
+                log.add(EffectLog.MUZZLE, y, x, dir);
+                log.add(k % 2 == 0 ? EffectLog.BRICK : EffectLog.STEEL, World.VIEW_WIDTH - x, y, dir);
+            }
+
+            long before = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            particles.advance(log, t);
+            long advanced = System.nanoTime();
+            long after = threads.getCurrentThreadAllocatedBytes();
+
+            Graphics2D g = frame.createGraphics();
+            try {
+                g.clearRect(0, 0, World.VIEW_WIDTH, World.VIEW_HEIGHT);
+                long drawStart = System.nanoTime();
+                particles.draw(g, camera, 0.5);
+                long drawn = System.nanoTime();
+                if (t >= WARMUP_TICKS) {
+                    advanceTimes.add(advanced - start);
+                    drawTimes.add(drawn - drawStart);
+                }
+            } finally {
+                g.dispose();
+            }
+            if (t >= WARMUP_TICKS) {
+                allocated += after - before;
+            }
+            maxLive = Math.max(maxLive, particles.size());
+        }
+        advanceTimes.sortSamples();
+        drawTimes.sortSamples();
+
+        System.out.printf("粒子: 存活 %d (最多 %d / 容量 %d), 生成 %d, 丢弃 %d (%.0f%%)%n", particles.size(), maxLive,
+                particles.capacity(), particles.getEmitted(), particles.getDropped(),
+                100.0 * particles.getDropped() / (particles.getEmitted() + particles.getDropped()));
+        System.out.printf("推进+发射: p50 %.2f ms, p99 %.2f ms; 绘制: p50 %.2f ms, p99 %.2f ms%n",
+                advanceTimes.percentile(50) / 1e6, advanceTimes.percentile(99) / 1e6,
+                drawTimes.percentile(50) / 1e6, drawTimes.percentile(99) / 1e6);
+        System.out.printf("推进时分配: %d B / %d tick%n", allocated, ticks);
+
+        if (maxLive > particles.capacity()) {
+            fail("存活粒子超过容量");
+        }
+        if (allocated > 0) {
+            fail("推进粒子时分配了内存");
+        }
+    }
+
+    private static void fail(String message) {
+        System.err.println("检查失败: " + message);
+        System.exit(1);
+    }
+}
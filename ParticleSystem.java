@@ -0,0 +1,264 @@
+import java.awt.*;
+import java.util.Arrays;
+
+// 粒子系统 - 爆炸的火团和烟、炮口火光、墙被打中时的碎片和火星, 只影响画面
+// 粒子存放在固定容量的基本类型数组中(位置、速度、剩余寿命、颜色编号), 生成和消亡都不分配; 死掉的粒子由最后一个换过来
+// 粒子按模拟tick推进: 读取绘制端的 EffectLog(RenderView 按渲染帧的增量接出来的副本)之前先把已有粒子推进到当前tick, 再为新事件发射粒子, 同一tick重复调用不会再推进
+// 池子过半后每次发射按剩余空间比例减少粒子数, 满了就丢弃, 所以事件再多, 推进和绘制的开销也不超过容量对应的量
+// 绘制时按颜色计数排序, 每种颜色只设置一次颜色, 粒子画成小方块
+class ParticleSystem {
+    // 颜色编号
+    static final int YELLOW = 0;
+    static final int ORANGE = 1;
+    static final int RED = 2;
+    static final int SMOKE = 3;
+    static final int FLASH = 4;
+    static final int BRICK = 5;
+    static final int MORTAR = 6;
+    static final int STEEL = 7;
+
+    private static final Color[] COLORS = {
+            new Color(255, 230, 90), new Color(255, 150, 30), new Color(200, 50, 20), new Color(90, 90, 90),
+            new Color(255, 255, 220), new Color(170, 80, 30), new Color(90, 40, 15), new Color(200, 200, 210),
+    };
+    // 各颜色粒子的方块边长
+    private static final int[] SIZES = {3, 3, 3, 4, 2, 3, 2, 2};
+
+    // 速度按 100Hz 下每tick移动的像素设计, 其他tick频率按比例换算; 每tick速度乘以 DRAG
+    private static final float SCALE = 100f / GameConfig.TICK_RATE;
+    private static final float DRAG = (float) Math.pow(0.94, SCALE);
+
+    // 一次最多推进的tick数, 比所有粒子的寿命都长
+    private static final int MAX_STEPS = GameConfig.ticks(1000);
+
+    private final int capacity;
+    private final float[] x;
+    private final float[] y;
+    private final float[] vx;
+    private final float[] vy;
+    private final short[] life; // 剩余tick数
+    private final byte[] color;
+    private int count;
+
+    // 只影响画面, 不需要和模拟一样可重现, 但也不必每次新建 Random
+    private final long[] rng = {GameRandom.initialState(1)};
+
+    // 绘制用: 可见粒子的下标, 按颜色排好的下标, 每种颜色在 order 中的起点
+    private final int[] visible;
+    private final int[] order;
+    private final int[] colorStart = new int[COLORS.length + 1];
+
+    // 已读到的事件和已推进到的tick
+    private EffectLog source;
+    private long read;
+    private long tick;
+
+    private long emitted;
+    private long dropped;
+
+    public ParticleSystem(int capacity) {
+        this.capacity = capacity;
+        x = new float[capacity];
+        y = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        life = new short[capacity];
+        color = new byte[capacity];
+        visible = new int[capacity];
+        order = new int[capacity];
+    }
+
+    // 推进到 worldTick, 再为 log 中还没读过的事件发射粒子; log 换了(新的一局或读档)时清空
+    public void advance(EffectLog log, long worldTick) {
+        if (log == null) {
+            return;
+        }
+        if (log != source) {
+            count = 0;
+            source = log;
+            read = 0;
+            tick = worldTick;
+        }
+
+        long steps = Math.min(worldTick - tick, MAX_STEPS);
+        for (long s = 0; s < steps; s++) {
+            step();
+        }
+        tick = worldTick;
+
+        // 落后超过缓冲区容量时, 被覆盖的事件就不画了
+        long written = log.getWritten();
+        read = Math.max(read, written - log.capacity());
+        for (; read < written; read++) {
+            emit(log, read);
+        }
+    }
+
+    // 所有粒子走一个tick, 寿命到了的删除(倒序遍历, 换过来的粒子已经处理过)
+    private void step() {
+        for (int i = count - 1; i >= 0; i--) {
+            if (--life[i] <= 0) {
+                remove(i);
+                continue;
+            }
+            x[i] += vx[i];
+            y[i] += vy[i];
+            vx[i] *= DRAG;
+            vy[i] *= DRAG;
+        }
+    }
+
+    private void remove(int i) {
+        int last = --count;
+        x[i] = x[last];
+        y[i] = y[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        life[i] = life[last];
+        color[i] = color[last];
+    }
+
+    // 发射器: 按事件种类决定粒子数、方向、速度、寿命和颜色
+    private void emit(EffectLog log, long n) {
+        float ex = log.getX(n);
+        float ey = log.getY(n);
+        Direction dir = log.getDirection(n);
+        double heading = Math.atan2(dir.getDy(), dir.getDx());
+        switch (log.getKind(n)) {
+            case EffectLog.EXPLOSION: {
+                // 向四周炸开的火团, 每四个里有一个是飘得慢、散得晚的烟
+                int particles = budget(40);
+                for (int k = 0; k < particles; k++) {
+                    int c = k % 4;
+                    double speed = (0.5 + 3 * random()) * (c == SMOKE ? 0.4 : 1);
+                    spawn(ex, ey, 2 * Math.PI * random(), speed, 250 + 450 * random() + (c == SMOKE ? 300 : 0), c);
+                }
+                break;
+            }
+            case EffectLog.MUZZLE: {
+                // 顺着炮管喷出的一小簇火光
+                int particles = budget(6);
+                for (int k = 0; k < particles; k++) {
+                    spawn(ex, ey, heading + 0.7 * (random() - 0.5), 1 + 2 * random(), 50 + 80 * random(),
+                            k == 0 ? FLASH : YELLOW);
+                }
+                break;
+            }
+            case EffectLog.BRICK: {
+                // 砖块碎片朝子弹来的方向溅回去
+                int particles = budget(10);
+                for (int k = 0; k < particles; k++) {
+                    spawn(ex, ey, heading + Math.PI + 2.2 * (random() - 0.5), 0.4 + 1.8 * random(),
+                            300 + 400 * random(), k % 3 == 0 ? MORTAR : BRICK);
+                }
+                break;
+            }
+            case EffectLog.STEEL: {
+                // 钢墙打不掉, 只溅出几颗快而短命的火星
+                int particles = budget(6);
+                for (int k = 0; k < particles; k++) {
+                    spawn(ex, ey, heading + Math.PI + 1.6 * (random() - 0.5), 1.5 + 2.5 * random(),
+                            80 + 120 * random(), k % 2 == 0 ? FLASH : STEEL);
+                }
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    // 本次发射实际生成的粒子数: 池子过半后按剩余空间比例减少(至少1个), 满了就全部丢弃
+    private int budget(int requested) {
+        int free = capacity - count;
+        int half = capacity / 2;
+        int granted = free >= half ? requested : Math.min(free, Math.max(1, requested * free / half));
+        emitted += granted;
+        dropped += requested - granted;
+        return granted;
+    }
+
+    // speed 为 100Hz 下每tick的像素数, lifeMillis 为寿命
+    private void spawn(float px, float py, double angle, double speed, double lifeMillis, int c) {
+        int i = count++;
+        x[i] = px;
+        y[i] = py;
+        vx[i] = (float) (Math.cos(angle) * speed * SCALE);
+        vy[i] = (float) (Math.sin(angle) * speed * SCALE);
+        life[i] = (short) Math.min(Short.MAX_VALUE, GameConfig.ticks((int) lifeMillis));
+        color[i] = (byte) c;
+    }
+
+    private double random() {
+        return GameRandom.nextInt(rng, 0, 1 << 24) / (double) (1 << 24);
+    }
+
+    // 画出镜头内的粒子, g 已经平移到世界坐标
+    public void draw(Graphics g, Camera camera, double alpha) {
+        // 先挑出可见的并按颜色计数, 再按颜色排好下标
+        Arrays.fill(colorStart, 0);
+        int shown = 0;
+        for (int i = 0; i < count; i++) {
+            int size = SIZES[color[i]];
+            if (camera.sees(renderX(i, alpha), renderY(i, alpha), size, size)) {
+                visible[shown++] = i;
+                colorStart[color[i] + 1]++;
+            }
+        }
+        for (int c = 0; c < COLORS.length; c++) {
+            colorStart[c + 1] += colorStart[c];
+        }
+        for (int k = 0; k < shown; k++) {
+            int i = visible[k];
+            order[colorStart[color[i]]++] = i;
+        }
+
+        // 排好后 colorStart[c] 是颜色 c 的终点, 也就是颜色 c + 1 的起点
+        int from = 0;
+        for (int c = 0; c < COLORS.length; c++) {
+            int to = colorStart[c];
+            if (to > from) {
+                g.setColor(COLORS[c]);
+                int size = SIZES[c];
+                for (int k = from; k < to; k++) {
+                    int i = order[k];
+                    g.fillRect(renderX(i, alpha), renderY(i, alpha), size, size);
+                }
+            }
+            from = to;
+        }
+    }
+
+    // 插值后方块的左上角: 当前位置往回退 (1 - alpha) 个tick的速度, 方块以粒子位置为中心
+    public int renderX(int i, double alpha) {
+        return (int) (x[i] - vx[i] * (1 - alpha)) - SIZES[color[i]] / 2;
+    }
+
+    public int renderY(int i, double alpha) {
+        return (int) (y[i] - vy[i] * (1 - alpha)) - SIZES[color[i]] / 2;
+    }
+
+    public int getSize(int i) {
+        return SIZES[color[i]];
+    }
+
+    public int getColor(int i) {
+        return color[i];
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // 累计生成的粒子数和因为池子太满而少生成的粒子数
+    public long getEmitted() {
+        return emitted;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,156 @@
+import java.awt.*;
+
+// 性能叠加层(F3开关) - 帧间隔和tick耗时的滚动曲线, 各阶段耗时的 p50/p99/max, 实体数量和每tick分配的字节数
+// 样本都存放在定长的 SampleRing 中, 采样本身不分配内存; 排序统计和文字只在绘制叠加层时进行
+// 帧和绘制的样本在绘制线程记录; tick的样本由模拟线程记录在 TickSamples 中, 随渲染帧复制过来
+class PerfOverlay {
+    // 保留的样本数, 也是曲线的宽度(每个样本1像素)
+    static final int HISTORY = 240;
+    private static final int GRAPH_HEIGHT = 40;
+    private static final int PANEL_WIDTH = HISTORY + 20;
+    private static final int LINE_HEIGHT = 15;
+    private static final int LINES = 12;
+    private static final Rectangle BOUNDS = new Rectangle(World.VIEW_WIDTH - PANEL_WIDTH - 10, 45, PANEL_WIDTH,
+            2 * (GRAPH_HEIGHT + LINE_HEIGHT + 5) + LINES * LINE_HEIGHT + 15);
+
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color BACKGROUND = new Color(0, 0, 0, 180);
+    private static final Color TARGET_LINE = new Color(255, 255, 255, 80);
+
+    private final SampleRing frameTimes = new SampleRing(HISTORY);
+    private final SampleRing paintTimes = new SampleRing(HISTORY);
+    private final SampleRing repaintedPixels = new SampleRing(HISTORY);
+
+    // 曲线顶点, 预先分配
+    private final int[] xPoints = new int[HISTORY];
+    private final int[] yPoints = new int[HISTORY];
+
+    // EDT 上开关, 主动渲染时由渲染线程读取
+    private volatile boolean visible = GameConfig.PERF_OVERLAY;
+    private long lastFrame;
+
+    public void toggle() {
+        visible = !visible;
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    // 每帧绘制完成后调用; frameStart 为这一帧开始绘制的时间
+    public void endFrame(long frameStart, long paintNanos) {
+        if (lastFrame != 0) {
+            frameTimes.add(frameStart - lastFrame);
+        }
+        lastFrame = frameStart;
+        paintTimes.add(paintNanos);
+    }
+
+    // 脏矩形模式下每次绘制重画的像素数
+    public void recordRepaint(long pixels) {
+        repaintedPixels.add(pixels);
+    }
+
+    // 叠加层占用的屏幕区域
+    public Rectangle getBounds() {
+        return BOUNDS;
+    }
+
+    public void draw(Graphics g, RenderView view, WorldRenderer renderer, long frameNanos, long tickNanos) {
+        TickSamples samples = view.getTickSamples();
+        SampleRing tickTimes = samples.getTickTimes();
+        g.setColor(BACKGROUND);
+        g.fillRect(BOUNDS.x, BOUNDS.y, BOUNDS.width, BOUNDS.height);
+        g.setFont(FONT);
+
+        int x = BOUNDS.x + 10;
+        int y = BOUNDS.y + LINE_HEIGHT;
+        y = drawGraph(g, "帧间隔", frameTimes, frameNanos, Color.GREEN, x, y);
+        y = drawGraph(g, "tick", tickTimes, tickNanos, Color.ORANGE, x, y);
+
+        g.setColor(Color.WHITE);
+        g.drawString("(ms)           p50    p99    max", x, y);
+        y += LINE_HEIGHT;
+        y = drawStats(g, "tick", tickTimes, x, y);
+        y = drawStats(g, "update", samples.getPhaseTimes(TickPhase.UPDATE), x, y);
+        y = drawStats(g, "collisions", samples.getPhaseTimes(TickPhase.CHECK_COLLISIONS), x, y);
+        y = drawStats(g, "spawnEnemy", samples.getPhaseTimes(TickPhase.SPAWN_ENEMY), x, y);
+        y = drawStats(g, "paint", paintTimes, x, y);
+
+        y += 5;
+        BulletPool bullets = view.getBullets();
+        g.drawString(String.format("敌人 %d  子弹 %d/%d  爆炸 %d", view.getEnemies().size(),
+                bullets.count(BulletPool.PLAYER), bullets.count(BulletPool.ENEMY),
+                view.getExplosions().size()), x, y);
+        y += LINE_HEIGHT;
+
+        ParticleSystem particles = renderer.getParticles();
+        g.drawString(String.format("粒子 %d/%d  丢弃 %d", particles.size(), particles.capacity(),
+                particles.getDropped()), x, y);
+        y += LINE_HEIGHT;
+
+        g.drawString(String.format("AI 决策 %d/%d  推迟 %d", view.getAiDecisions(), view.getAiBudget(),
+                view.getAiDeferred()), x, y);
+        y += LINE_HEIGHT;
+
+        if (TickSamples.isAllocationSupported()) {
+            SampleRing allocatedBytes = samples.getAllocatedBytes();
+            allocatedBytes.sortSamples();
+            g.drawString(String.format("分配/tick p50 %d B  max %d B",
+                    allocatedBytes.percentile(50), allocatedBytes.max()), x, y);
+        } else {
+            g.drawString("分配/tick 不支持", x, y);
+        }
+        y += LINE_HEIGHT;
+
+        if (repaintedPixels.size() > 0) {
+            long total = 0;
+            for (int i = 0; i < repaintedPixels.size(); i++) {
+                total += repaintedPixels.get(i);
+            }
+            double fraction = total / (double) (repaintedPixels.size() * DirtyRegions.getFullPixels());
+            g.drawString(String.format("重画像素 %.0f%%, 节省 %.0f%%", fraction * 100, (1 - fraction) * 100), x, y);
+        }
+        y += LINE_HEIGHT;
+
+        // 大世界: 各模拟等级的敌人数和地形区块缓存
+        if (World.WIDTH > World.VIEW_WIDTH || World.HEIGHT > World.VIEW_HEIGHT) {
+            TerrainChunkCache cache = renderer.getTerrainCache();
+            g.drawString(String.format("敌人 %d/%d/%d  区块 %d (%d MB)", view.countEnemies(ActiveRegion.FULL),
+                    view.countEnemies(ActiveRegion.CHEAP), view.countEnemies(ActiveRegion.FROZEN),
+                    cache.getCachedChunks(), cache.getBytes() >> 20), x, y);
+        }
+    }
+
+    // 滚动曲线: 纵轴从0到窗口内最大值(至少为目标间隔的2倍), 横线标出目标间隔
+    private int drawGraph(Graphics g, String label, SampleRing ring, long target, Color color, int x, int y) {
+        ring.sortSamples();
+        long latest = ring.latest();
+        g.setColor(Color.WHITE);
+        g.drawString(String.format("%s %.2f ms", label, latest / 1e6), x, y);
+        y += 5;
+
+        long scale = Math.max(ring.max(), target * 2);
+        int bottom = y + GRAPH_HEIGHT;
+        g.setColor(TARGET_LINE);
+        int targetY = bottom - (int) (target * GRAPH_HEIGHT / scale);
+        g.drawLine(x, targetY, x + HISTORY - 1, targetY);
+
+        int n = ring.size();
+        for (int i = 0; i < n; i++) {
+            xPoints[i] = x + HISTORY - n + i;
+            yPoints[i] = bottom - (int) (ring.get(i) * GRAPH_HEIGHT / scale);
+        }
+        g.setColor(color);
+        g.drawPolyline(xPoints, yPoints, n);
+
+        return bottom + LINE_HEIGHT + 5;
+    }
+
+    private int drawStats(Graphics g, String label, SampleRing ring, int x, int y) {
+        ring.sortSamples();
+        g.drawString(String.format("%-11s %6.2f %6.2f %6.2f", label,
+                ring.percentile(50) / 1e6, ring.percentile(99) / 1e6, ring.max() / 1e6), x, y);
+        return y + LINE_HEIGHT;
+    }
+}
@@ -0,0 +1,79 @@
+// 玩家坦克类
+class PlayerTank extends Tank {
+    private boolean[] keys = new boolean[4]; // 上,右,下,左
+    private final int spawnX, spawnY; // 被击中后回到出生点
+
+    public PlayerTank(int x, int y) {
+        super(x, y);
+        spawnX = x;
+        spawnY = y;
+    }
+
+    @Override
+    public void update() {
+        dx = 0;
+        dy = 0;
+
+        // 8方向移动逻辑
+        if (keys[0] && !keys[2]) { // 上
+            dy = -speed;
+            if (keys[1] && !keys[3]) {
+                dx = speed;
+                direction = Direction.UP_RIGHT;
+            } else if (!keys[1] && keys[3]) {
+                dx = -speed;
+                direction = Direction.UP_LEFT;
+            } else {
+                direction = Direction.UP;
+            }
+        } else if (!keys[0] && keys[2]) { // 下
+            dy = speed;
+            if (keys[1] && !keys[3]) {
+                dx = speed;
+                direction = Direction.DOWN_RIGHT;
+            } else if (!keys[1] && keys[3]) {
+                dx = -speed;
+                direction = Direction.DOWN_LEFT;
+            } else {
+                direction = Direction.DOWN;
+            }
+        } else if (keys[1] && !keys[3]) { // 右
+            dx = speed;
+            direction = Direction.RIGHT;
+        } else if (!keys[1] && keys[3]) { // 左
+            dx = -speed;
+            direction = Direction.LEFT;
+        }
+
+        super.update();
+    }
+
+    // 按输入位设置方向键状态
+    public void setInput(int inputs) {
+        keys[0] = (inputs & World.INPUT_UP) != 0;
+        keys[1] = (inputs & World.INPUT_RIGHT) != 0;
+        keys[2] = (inputs & World.INPUT_DOWN) != 0;
+        keys[3] = (inputs & World.INPUT_LEFT) != 0;
+    }
+
+    public int getSpawnX() {
+        return spawnX;
+    }
+
+    public int getSpawnY() {
+        return spawnY;
+    }
+
+    public void reset() {
+        x = spawnX;
+        y = spawnY;
+        // 复活是瞬移, 不做插值
+        prevX = x;
+        prevY = y;
+    }
+
+    @Override
+    public boolean isPlayerBullet() {
+        return true;
+    }
+}
@@ -0,0 +1,99 @@
+// 渲染帧 - 模拟线程每轮循环把绘制需要的状态复制到这里, 经 TripleBuffer 交给绘制线程, 绘制线程不再碰 World
+// 数组按需扩容后反复使用, 三个帧轮流复用, 稳定运行时不再分配
+// 实体整份复制(只复制位置和朝向); 地形变化和特效事件只带增量, 由 RenderView 接到自己的副本上, 见 FramePublisher
+// 字段由 FramePublisher 写、RenderView 读
+class RenderFrame {
+    long sequence;      // 发布序号, 每帧加一
+    long time;          // 最新一个tick对应的时刻(System.nanoTime()), 绘制时按它插值
+    int round;          // 第几局; 地形或特效日志换了(新的一局、读档)时加一, 增量从头开始
+    GameState state = GameState.MENU;
+    Difficulty difficulty = Difficulty.MEDIUM;
+    long tickCount;
+    int score;
+    int lives;
+    boolean canResume;  // 有存档可以继续
+
+    PlayerTank player;  // 还没开始过游戏时为null
+    final EnemyPool enemies = new EnemyPool(64);
+    final BulletPool bullets = new BulletPool(256);
+    final ExplosionPool explosions = new ExplosionPool(16);
+
+    // 地形: 本局的初始关卡(不会再被修改, 直接共享) + 第 terrainFrom 到 terrainEnd 个被打掉的格子
+    TileMap level;
+    int terrainFrom;
+    int terrainEnd;
+    int[] terrainChanges = new int[64];
+
+    // 特效: 日志中第 effectsFrom 个起的事件
+    long effectsFrom;
+    final EffectLog effects = new EffectLog(World.EFFECT_CAPACITY);
+
+    int aiDecisions;
+    int aiBudget;
+    int aiDeferred;
+
+    // 性能叠加层打开时才复制
+    boolean hasStats;
+    final TickSamples samples = new TickSamples(PerfOverlay.HISTORY);
+    final int[] enemyLevels = new int[3]; // 各模拟等级的敌人数
+
+    // 从世界复制当前状态
+    public void capture(World world, long sequence, int round, int terrainFrom, long effectsFrom, long time) {
+        this.sequence = sequence;
+        this.round = round;
+        this.time = time;
+        state = world.getState();
+        difficulty = world.getDifficulty();
+        tickCount = world.getTickCount();
+        score = world.getScore();
+        lives = world.getLives();
+
+        PlayerTank worldPlayer = world.getPlayer();
+        if (worldPlayer == null) {
+            player = null;
+        } else {
+            if (player == null) {
+                player = new PlayerTank(worldPlayer.getX(), worldPlayer.getY());
+            }
+            player.copyFrom(worldPlayer);
+        }
+        if (world.getEnemies() != null) {
+            enemies.copyFrom(world.getEnemies());
+            bullets.copyFrom(world.getBullets());
+            explosions.copyFrom(world.getExplosions());
+        }
+
+        TileMap terrain = world.getTerrain();
+        level = terrain != null ? world.getLevel() : null;
+        this.terrainFrom = terrainFrom;
+        terrainEnd = terrain != null ? terrain.getChangeCount() : 0;
+        if (terrainChanges.length < terrainEnd - terrainFrom) {
+            terrainChanges = new int[Math.max(terrainChanges.length * 2, terrainEnd - terrainFrom)];
+        }
+        for (int n = terrainFrom; n < terrainEnd; n++) {
+            terrainChanges[n - terrainFrom] = terrain.getChange(n);
+        }
+
+        this.effectsFrom = effectsFrom;
+        if (world.getEffects() != null) {
+            effects.copyFrom(world.getEffects(), effectsFrom);
+        }
+
+        AiScheduler ai = world.getAiScheduler();
+        aiDecisions = ai.getDecisions();
+        aiBudget = ai.getBudget();
+        aiDeferred = ai.getDeferred();
+    }
+
+    // samples 为null表示不需要性能统计
+    public void captureStats(World world, TickSamples samples) {
+        hasStats = samples != null;
+        if (!hasStats) {
+            return;
+        }
+        this.samples.copyFrom(samples);
+        for (int lod = 0; lod < enemyLevels.length; lod++) {
+            enemyLevels[lod] = world.getEnemies() != null ? world.countEnemies(lod) : 0;
+        }
+    }
+}
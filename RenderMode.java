@@ -0,0 +1,20 @@
+// 渲染方式
+enum RenderMode {
+    PASSIVE, // JPanel + repaint(), 由 Swing 决定何时绘制
+    ACTIVE,  // Canvas + 三缓冲 BufferStrategy, 由独立渲染线程按固定节奏绘制
+    DIRTY;   // 同 PASSIVE, 但只重画有变化的区域(见 DirtyRegions)
+
+    // 不认识的值直接报错, 拼错时不会悄悄拿默认的渲染方式做对比
+    public static RenderMode parse(String value) {
+        switch (value.toLowerCase()) {
+            case "passive":
+                return PASSIVE;
+            case "active":
+                return ACTIVE;
+            case "dirty":
+                return DIRTY;
+            default:
+                throw new IllegalArgumentException("未知的渲染方式: " + value + " (可选 passive / active / dirty)");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+// 绘制端看到的世界 - 绘制线程每帧从三缓冲取最新的 RenderFrame, 绘制代码只通过这里读状态, 不碰模拟线程的 World
+// 实体直接读帧里的副本; 地形和特效日志是本地的副本, 每取到新的一帧就把帧里带的增量接上去,
+// 所以 TerrainChunkCache、DirtyRegions 和 ParticleSystem 照常按变化日志增量工作
+// 只由绘制线程访问(被动渲染时是 EDT, 主动渲染时是渲染线程), 不加锁
+class RenderView {
+    private final TripleBuffer<RenderFrame> frames;
+    private final long tickNanos = 1_000_000_000L / GameConfig.TICK_RATE;
+
+    private RenderFrame frame;
+    private long sequence = -1;
+    private int round = -1;
+    private TileMap terrain;
+    private EffectLog effects;
+    private final TickSamples samples = new TickSamples(PerfOverlay.HISTORY);
+    private double alpha;
+
+    public RenderView(TripleBuffer<RenderFrame> frames) {
+        this.frames = frames;
+        refresh(System.nanoTime());
+    }
+
+    // 每帧绘制前调用一次: 换上最新的一帧, 按当前时刻算出这一帧绘制用的插值比例
+    public void refresh(long now) {
+        frame = frames.read();
+        if (frame.sequence != sequence) {
+            apply(frame);
+        }
+        alpha = Math.max(0, Math.min(1, (now - frame.time) / (double) tickNanos));
+    }
+
+    private void apply(RenderFrame f) {
+        if (f.round != round) {
+            round = f.round;
+            terrain = f.level != null ? f.level.copy() : null;
+            effects = new EffectLog(World.EFFECT_CAPACITY);
+        }
+        if (terrain != null) {
+            for (int n = Math.max(f.terrainFrom, terrain.getChangeCount()); n < f.terrainEnd; n++) {
+                terrain.destroy(f.terrainChanges[n - f.terrainFrom]);
+            }
+        }
+        effects.append(f.effects, f.effectsFrom);
+        if (f.hasStats) {
+            samples.copyFrom(f.samples);
+        }
+        sequence = f.sequence;
+    }
+
+    // 在上一个tick和最新tick位置之间插值的比例, 模拟落后时停在1
+    public double getAlpha() {
+        return alpha;
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    public PlayerTank getPlayer() {
+        return frame.player;
+    }
+
+    public EnemyPool getEnemies() {
+        return frame.enemies;
+    }
+
+    public BulletPool getBullets() {
+        return frame.bullets;
+    }
+
+    public ExplosionPool getExplosions() {
+        return frame.explosions;
+    }
+
+    public TileMap getTerrain() {
+        return terrain;
+    }
+
+    public EffectLog getEffects() {
+        return effects;
+    }
+
+    public GameState getState() {
+        return frame.state;
+    }
+
+    public Difficulty getDifficulty() {
+        return frame.difficulty;
+    }
+
+    public long getTickCount() {
+        return frame.tickCount;
+    }
+
+    public int getScore() {
+        return frame.score;
+    }
+
+    public int getLives() {
+        return frame.lives;
+    }
+
+    public boolean canResume() {
+        return frame.canResume;
+    }
+
+    public int getAiDecisions() {
+        return frame.aiDecisions;
+    }
+
+    public int getAiBudget() {
+        return frame.aiBudget;
+    }
+
+    public int getAiDeferred() {
+        return frame.aiDeferred;
+    }
+
+    // 以下两项只在模拟线程被要求复制性能统计之后才有值
+    public int countEnemies(int level) {
+        return frame.enemyLevels[level];
+    }
+
+    public TickSamples getTickSamples() {
+        return samples;
+    }
+}
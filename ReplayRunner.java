@@ -0,0 +1,155 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+// 录像回放 - 不创建任何窗口, 按录像中的输入全速推进 World, 并核对每个校验点
+// 用法: java ReplayRunner <录像文件>
+class ReplayRunner {
+    private final DataInputStream in;
+    private final World world;
+    private final long gameSeed;
+    private final Difficulty difficulty;
+    private final TileMap level;
+    private final int maxEnemies;
+    private final int maxEnemyBullets;
+    private final int spawnBatch;
+    private final int aiBudget;
+    private final int enemySpawnRate;
+    private final int enemyFireRate;
+
+    private long nextRecordTick;
+    private int nextKind;
+    private int inputs;
+    private int checksumsVerified;
+
+    public ReplayRunner(DataInputStream in, World world) throws IOException {
+        this.in = in;
+        this.world = world;
+
+        if (in.readInt() != InputRecorder.MAGIC) {
+            throw new IOException("不是坦克大战录像文件");
+        }
+        int version = in.readUnsignedByte();
+        if (version != InputRecorder.VERSION) {
+            // 版本4起敌人按流场寻路, 版本5起AI决策受每tick预算限制, 版本6起可以覆盖难度参数,
+            // 版本7起记录活动区域和屏幕外AI的参数, 更早的录像无法重现
+            throw new IOException("不支持的录像版本: " + version);
+        }
+        long tickRate = VarInt.read(in);
+        if (tickRate != GameConfig.TICK_RATE) {
+            throw new IOException("录像的tick频率为 " + tickRate + ", 请用 -Dtank.tickRate=" + tickRate + " 回放");
+        }
+        long difficultyIndex = VarInt.read(in);
+        if (difficultyIndex >= Difficulty.values().length) {
+            throw new IOException("难度无效: " + difficultyIndex);
+        }
+        difficulty = Difficulty.values()[(int) difficultyIndex];
+        gameSeed = in.readLong();
+        VarInt.read(in); // 校验间隔, 回放时按记录逐条核对
+        level = TileMap.read(in);
+        maxEnemies = (int) VarInt.read(in);
+        maxEnemyBullets = (int) VarInt.read(in);
+        spawnBatch = (int) VarInt.read(in);
+        aiBudget = (int) VarInt.read(in);
+        enemySpawnRate = (int) VarInt.read(in);
+        enemyFireRate = (int) VarInt.read(in);
+
+        // 活动区域和远近AI的参数不在世界状态里, 不一致时回放会在第一个校验点才发现, 这里直接拒绝
+        long activeChunks = VarInt.read(in);
+        long cheapChunks = VarInt.read(in);
+        if (activeChunks != GameConfig.ACTIVE_CHUNKS || cheapChunks != GameConfig.CHEAP_CHUNKS) {
+            throw new IOException("录像的模拟区域为 " + activeChunks + " / " + cheapChunks + " 个区块, 请用 -Dtank.activeChunks="
+                    + activeChunks + " -Dtank.cheapChunks=" + cheapChunks + " 回放");
+        }
+        long cheapInterval = VarInt.read(in);
+        long farScale = VarInt.read(in);
+        if (cheapInterval != ActiveRegion.CHEAP_INTERVAL || farScale != AiScheduler.FAR_SCALE) {
+            throw new IOException("录像的简化模拟间隔为 " + cheapInterval + ", 屏幕外AI间隔倍数为 " + farScale
+                    + ", 与当前版本(" + ActiveRegion.CHEAP_INTERVAL + ", " + AiScheduler.FAR_SCALE + ")不同, 无法重现");
+        }
+        readTag();
+    }
+
+    // 回放到录像结束, 返回回放的tick数; 校验和不一致时抛出 IllegalStateException
+    public long run() throws IOException {
+        world.setDifficulty(difficulty);
+        world.setLevel(level);
+        world.setMaxEnemies(maxEnemies);
+        world.setMaxEnemyBullets(maxEnemyBullets);
+        world.setSpawnBatch(spawnBatch);
+        world.setAiBudget(aiBudget);
+        world.setEnemySpawnRate(enemySpawnRate);
+        world.setEnemyFireRate(enemyFireRate);
+        world.start(gameSeed);
+
+        while (true) {
+            long tick = world.getTickCount();
+            if (world.getState() != GameState.PLAYING
+                    || nextKind == InputRecorder.KIND_END && tick >= nextRecordTick) {
+                return tick;
+            }
+
+            // 应用本tick之前的输入变化
+            while (nextKind == InputRecorder.KIND_INPUT && nextRecordTick == tick) {
+                inputs ^= (int) VarInt.read(in);
+                readTag();
+            }
+
+            world.step(inputs);
+
+            // 核对本tick之后的校验和
+            if (nextKind == InputRecorder.KIND_CHECKSUM && nextRecordTick == world.getTickCount()) {
+                long expected = in.readLong();
+                long actual = world.checksum();
+                if (expected != actual) {
+                    throw new IllegalStateException("第 " + world.getTickCount() + " tick 校验和不一致: 录制时 "
+                            + Long.toHexString(expected) + ", 回放 " + Long.toHexString(actual));
+                }
+                checksumsVerified++;
+                readTag();
+            }
+        }
+    }
+
+    public int getChecksumsVerified() {
+        return checksumsVerified;
+    }
+
+    private void readTag() throws IOException {
+        long tag;
+        try {
+            tag = VarInt.read(in);
+        } catch (EOFException e) {
+            // 没有正常结束的录像(例如程序被强制关闭), 到此为止
+            nextKind = InputRecorder.KIND_END;
+            return;
+        }
+        nextRecordTick += tag >>> 2;
+        nextKind = (int) (tag & 3);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("用法: java ReplayRunner <录像文件>");
+            System.exit(2);
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(args[0])))) {
+            ReplayRunner replay = new ReplayRunner(in, new World(0));
+            long start = System.nanoTime();
+            long ticks;
+            try {
+                ticks = replay.run();
+            } catch (IllegalStateException e) {
+                System.err.println("回放失败: " + e.getMessage());
+                System.exit(1);
+                return;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("回放完成: %d tick, 核对 %d 个校验点, 用时 %.3f 秒 (%.0f tick/秒)%n",
+                    ticks, replay.getChecksumsVerified(), seconds, ticks / seconds);
+        }
+    }
+}
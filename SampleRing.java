@@ -0,0 +1,69 @@
+import java.util.Arrays;
+
+// 定长采样环 - 样本存放在基本类型数组中, 写满后覆盖最旧的样本, 记录样本时不分配内存
+class SampleRing {
+    private final long[] samples;
+    private final long[] sorted;
+    private int next;
+    private int count;
+    private int sortedCount;
+
+    public SampleRing(int capacity) {
+        samples = new long[capacity];
+        sorted = new long[capacity];
+    }
+
+    public void add(long value) {
+        samples[next] = value;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    // 复制 src 的样本, 两个环容量相同
+    public void copyFrom(SampleRing src) {
+        System.arraycopy(src.samples, 0, samples, 0, samples.length);
+        next = src.next;
+        count = src.count;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return samples.length;
+    }
+
+    // 第i个样本, 0为最旧
+    public long get(int i) {
+        return samples[(next - count + i + samples.length) % samples.length];
+    }
+
+    public long latest() {
+        return count == 0 ? 0 : get(count - 1);
+    }
+
+    // 把当前样本排序到内部缓冲区, 之后 percentile()/max() 读取这次排序的结果
+    public void sortSamples() {
+        for (int i = 0; i < count; i++) {
+            sorted[i] = get(i);
+        }
+        Arrays.sort(sorted, 0, count);
+        sortedCount = count;
+    }
+
+    // p 取值 0~100
+    public long percentile(double p) {
+        if (sortedCount == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p / 100.0 * sortedCount) - 1;
+        return sorted[Math.max(0, Math.min(sortedCount - 1, index))];
+    }
+
+    public long max() {
+        return sortedCount == 0 ? 0 : sorted[sortedCount - 1];
+    }
+}
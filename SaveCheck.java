@@ -0,0 +1,94 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// 存档检查 - 无界面运行一局, 中途存档并读进另一个世界, 之后两边输入相同的按键, 每个tick核对校验和
+// 报告存档时占用模拟线程的序列化时间、后台写文件时间、读档时间和文件大小; 不一致时以状态1退出
+// 用法: java SaveCheck [敌人数] [存档前tick数] [存档后核对的tick数]
+class SaveCheck {
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+        int enemies = args.length > 0 ? Integer.parseInt(args[0]) : GameConfig.MAX_ENEMIES;
+        int warmupTicks = args.length > 1 ? Integer.parseInt(args[1]) : 3000;
+        int compareTicks = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+
+        World world = newWorld(42, enemies);
+        world.start();
+        Random keys = new Random(7);
+        for (int i = 0; i < warmupTicks; i++) {
+            world.step(randomInputs(keys));
+        }
+
+        Path file = Files.createTempFile("tankwar", ".sav");
+        SaveGame saves = new SaveGame(file);
+        try {
+            // 多存几次, 后面几次的耗时不含类加载和JIT
+            for (int round = 0; round < ROUNDS; round++) {
+                saves.saveNow(world);
+                World resumed = newWorld(1, 1);
+                saves.load(resumed);
+                if (resumed.getState() != GameState.PAUSED) {
+                    fail("读档后应处于暂停状态: " + resumed.getState());
+                }
+                resumed.resume();
+                if (resumed.checksum() != world.checksum()) {
+                    fail("读档后的校验和不一致, tick " + world.getTickCount());
+                }
+
+                for (int i = 0; i < compareTicks; i++) {
+                    int inputs = randomInputs(keys);
+                    world.step(inputs);
+                    resumed.step(inputs);
+                    if (resumed.checksum() != world.checksum() || resumed.getState() != world.getState()) {
+                        fail("继续后第 " + (i + 1) + " 个tick校验和不一致, tick " + world.getTickCount());
+                    }
+                }
+            }
+            System.out.printf("存档: tick %d, %d 敌人, %d 子弹, 文件 %.1f KB%n", world.getTickCount(),
+                    world.getEnemies().size(), world.getBullets().size(), saves.getLastSize() / 1024.0);
+            System.out.printf("序列化(模拟线程) %.2f ms, 写文件(后台) %.2f ms, 读档 %.2f ms; %d 次存档后各核对 %d tick 一致%n",
+                    saves.getLastSerializeNanos() / 1e6, saves.getLastWriteNanos() / 1e6,
+                    saves.getLastLoadNanos() / 1e6, ROUNDS, compareTicks);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static World newWorld(long seed, int enemies) {
+        World world = new World(seed);
+        world.setMaxEnemies(enemies);
+        world.setMaxEnemyBullets(GameConfig.MAX_ENEMY_BULLETS);
+        world.setSpawnBatch(GameConfig.SPAWN_BATCH);
+        world.setStartingLives(Integer.MAX_VALUE); // 核对的是状态恢复, 不让一局中途结束
+        try {
+            world.setLevel(TileMap.load(GameConfig.LEVEL));
+        } catch (IOException e) {
+            System.err.println("无法加载关卡, 使用空场地: " + e.getMessage());
+        }
+        return world;
+    }
+
+    // 方向键随机按住一段时间, 偶尔开火
+    private static int randomInputs(Random keys) {
+        int inputs = keys.nextInt(8) == 0 ? World.INPUT_FIRE : 0;
+        switch (keys.nextInt(5)) {
+            case 0:
+                return inputs | World.INPUT_UP;
+            case 1:
+                return inputs | World.INPUT_RIGHT;
+            case 2:
+                return inputs | World.INPUT_DOWN;
+            case 3:
+                return inputs | World.INPUT_LEFT;
+            default:
+                return inputs;
+        }
+    }
+
+    private static void fail(String message) {
+        System.err.println("检查失败: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,209 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+// 存档 - 把进行中的一局写成紧凑的二进制文件, 下次启动后从菜单直接继续
+//
+// 文件格式:
+//   魔数 "TWS1", 版本(1字节), tick频率(4字节), 数据长度(4字节), 数据的 CRC32(4字节)
+//   数据: 见 World.writeState
+//
+// 定期存档不阻塞tick: 模拟线程只把状态序列化到内存缓冲区, 写文件由后台线程完成;
+// 先写临时文件再原子替换, 写到一半退出也不会留下损坏的存档. 上一次还没写完时跳过本次存档, 从不等待
+// 读取时用一次 FileChannel.read 读入整个文件再解析; 不用内存映射, 因为映射在被回收之前
+// 会让 Windows 上下一次存档无法替换这个文件
+class SaveGame {
+    static final int MAGIC = 0x54575331; // "TWS1"
+    static final int VERSION = 3; // 版本2起保存AI决策预算和轮转位置, 版本3起保存覆盖难度的参数
+    private static final int HEADER_SIZE = 4 + 1 + 4 + 4 + 4;
+
+    private final Path file;
+    private final Path tempFile;
+    private final ExecutorService writer;
+
+    // 只在模拟线程中访问; 后台写出期间缓冲区归写线程使用, 写完前不会再序列化
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private Future<?> pending;
+    private volatile boolean exists;
+
+    // 最近一次存档在模拟线程上花的时间和后台写文件的时间, 以及最近一次读档的时间(纳秒)
+    private volatile long lastSerializeNanos;
+    private volatile long lastWriteNanos;
+    private volatile long lastLoadNanos;
+    private volatile int lastSize;
+
+    public SaveGame(Path file) {
+        this.file = file;
+        this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        this.exists = Files.isRegularFile(file);
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "save-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 是否有可以继续的存档
+    public boolean exists() {
+        return exists;
+    }
+
+    // 定期存档, 在两个tick之间调用; 返回是否开始了一次写入
+    public boolean checkpoint(World world) {
+        if (pending != null && !pending.isDone()) {
+            return false;
+        }
+        serialize(world);
+        pending = writer.submit(this::writeBuffer);
+        return true;
+    }
+
+    // 同步存档(关闭窗口时), 等之前的写入完成后再写
+    public void saveNow(World world) throws IOException {
+        await();
+        serialize(world);
+        pending = writer.submit(this::writeBuffer);
+        await();
+    }
+
+    // 删除存档(本局结束), 排在尚未完成的写入之后执行
+    public void delete() {
+        exists = false;
+        pending = writer.submit(() -> {
+            try {
+                Files.deleteIfExists(file);
+                exists = false;
+            } catch (IOException e) {
+                System.err.println("无法删除存档 " + file + ": " + e);
+            }
+        });
+    }
+
+    // 读档到 world, 之后处于暂停状态; 存档损坏或版本不符时抛出 IOException
+    public void load(World world) throws IOException {
+        await();
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer in = ByteBuffer.allocate((int) Math.min(channel.size(), Integer.MAX_VALUE));
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+                // 读满整个文件
+            }
+            in.flip();
+            if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC) {
+                throw new IOException("不是坦克大战存档");
+            }
+            int version = in.get();
+            if (version != VERSION) {
+                throw new IOException("不支持的存档版本: " + version);
+            }
+            int tickRate = in.getInt();
+            if (tickRate != GameConfig.TICK_RATE) {
+                throw new IOException("存档的tick频率为 " + tickRate + ", 请用 -Dtank.tickRate=" + tickRate + " 继续");
+            }
+            int length = in.getInt();
+            int crc = in.getInt();
+            if (length != in.remaining()) {
+                throw new IOException("存档长度不符");
+            }
+            ByteBuffer data = in.slice();
+            CRC32 check = new CRC32();
+            check.update(data.duplicate());
+            if ((int) check.getValue() != crc) {
+                throw new IOException("存档校验失败");
+            }
+            try {
+                world.readState(data);
+            } catch (RuntimeException e) {
+                throw new IOException("存档数据错误: " + e, e);
+            }
+        }
+        lastLoadNanos = System.nanoTime() - start;
+    }
+
+    private void serialize(World world) {
+        long start = System.nanoTime();
+        int size = HEADER_SIZE + world.stateSize();
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+        }
+        buffer.clear();
+        buffer.position(HEADER_SIZE);
+        world.writeState(buffer);
+        int length = buffer.position() - HEADER_SIZE;
+
+        CRC32 check = new CRC32();
+        check.update(buffer.array(), HEADER_SIZE, length);
+        buffer.putInt(0, MAGIC);
+        buffer.put(4, (byte) VERSION);
+        buffer.putInt(5, GameConfig.TICK_RATE);
+        buffer.putInt(9, length);
+        buffer.putInt(13, (int) check.getValue());
+        buffer.flip();
+        lastSerializeNanos = System.nanoTime() - start;
+        lastSize = buffer.remaining();
+    }
+
+    // 在写线程中执行
+    private void writeBuffer() {
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer out = buffer.duplicate();
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                channel.force(false);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            exists = true;
+        } catch (IOException e) {
+            System.err.println("存档失败 " + file + ": " + e);
+        }
+        lastWriteNanos = System.nanoTime() - start;
+    }
+
+    private void await() throws IOException {
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待存档写入时被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("存档写入失败", e.getCause());
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getLastSerializeNanos() {
+        return lastSerializeNanos;
+    }
+
+    public long getLastWriteNanos() {
+        return lastWriteNanos;
+    }
+
+    public long getLastLoadNanos() {
+        return lastLoadNanos;
+    }
+
+    public int getLastSize() {
+        return lastSize;
+    }
+}
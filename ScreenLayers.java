@@ -0,0 +1,233 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// 界面层缓存 - 菜单、HUD、暂停和结束画面预先画到图像中, 只在输入(分数、生命、难度、状态)变化时重画
+// 暂停和结束时世界静止, 整个画面(世界 + HUD + 半透明遮罩和文字)画成一张图, 之后每帧只需一次 drawImage
+class ScreenLayers {
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 60);
+    private static final Font MENU_FONT = new Font("Arial", Font.BOLD, 32);
+    private static final Font HINT_FONT = new Font("Arial", Font.PLAIN, 20);
+    private static final Font HUD_FONT = new Font("Arial", Font.BOLD, 18);
+    private static final Font PROMPT_FONT = new Font("Arial", Font.BOLD, 30);
+    private static final Font SMALL_PROMPT_FONT = new Font("Arial", Font.BOLD, 24);
+    private static final Color SHADE = new Color(0, 0, 0, 150);
+
+    // HUD 只占屏幕上方一条
+    static final int HUD_HEIGHT = 100;
+
+    // 只在绘制线程中访问; 显示配置变化时全部重建
+    private GraphicsConfiguration config;
+
+    private Image menu;
+    private Difficulty menuDifficulty;
+    private boolean menuCanResume;
+
+    private Image hud;
+    private int hudScore;
+    private int hudLives;
+    private Difficulty hudDifficulty;
+
+    // 暂停/结束画面, frozenState 为null表示需要重画
+    private Image frozen;
+    private GameState frozenState;
+    private long frozenTick;
+
+    // canResume: 有存档时显示"继续游戏"
+    public void drawMenu(Graphics g, Difficulty difficulty, boolean canResume) {
+        checkConfig(g);
+        if (menu == null || difficulty != menuDifficulty || canResume != menuCanResume) {
+            menu = createLayer(menu, TankWarGame.WIDTH, TankWarGame.HEIGHT, Transparency.OPAQUE);
+            Graphics2D layer = begin(menu);
+            try {
+                paintMenu(layer, difficulty, canResume);
+            } finally {
+                layer.dispose();
+            }
+            menuDifficulty = difficulty;
+            menuCanResume = canResume;
+        }
+        g.drawImage(menu, 0, 0, null);
+        frozenState = null;
+    }
+
+    public void drawHud(Graphics g, RenderView view) {
+        checkConfig(g);
+        if (hud == null || view.getScore() != hudScore || view.getLives() != hudLives
+                || view.getDifficulty() != hudDifficulty) {
+            hud = createLayer(hud, TankWarGame.WIDTH, HUD_HEIGHT, Transparency.TRANSLUCENT);
+            Graphics2D layer = begin(hud);
+            try {
+                // 透明图像复用时先清空
+                layer.setComposite(AlphaComposite.Clear);
+                layer.fillRect(0, 0, TankWarGame.WIDTH, HUD_HEIGHT);
+                layer.setComposite(AlphaComposite.SrcOver);
+                paintHud(layer, view);
+            } finally {
+                layer.dispose();
+            }
+            hudScore = view.getScore();
+            hudLives = view.getLives();
+            hudDifficulty = view.getDifficulty();
+        }
+        g.drawImage(hud, 0, 0, null);
+        if (view.getState() == GameState.PLAYING) {
+            frozenState = null;
+        }
+    }
+
+    // 暂停或结束画面; 进入这两个状态后第一次调用时画好, 之后直接贴图
+    public void drawFrozen(Graphics g, RenderView view, WorldRenderer renderer) {
+        checkConfig(g);
+        if (frozen == null || frozenState != view.getState() || frozenTick != view.getTickCount()) {
+            frozen = createLayer(frozen, TankWarGame.WIDTH, TankWarGame.HEIGHT, Transparency.OPAQUE);
+            Graphics2D layer = begin(frozen);
+            try {
+                layer.setColor(Color.BLACK);
+                layer.fillRect(0, 0, TankWarGame.WIDTH, TankWarGame.HEIGHT);
+                renderer.draw(layer, view, 1.0);
+                paintHud(layer, view);
+                if (view.getState() == GameState.PAUSED) {
+                    paintPauseScreen(layer);
+                } else {
+                    paintGameOver(layer, view.getScore());
+                }
+            } finally {
+                layer.dispose();
+            }
+            frozenState = view.getState();
+            frozenTick = view.getTickCount();
+        }
+        g.drawImage(frozen, 0, 0, null);
+    }
+
+    private void checkConfig(Graphics g) {
+        GraphicsConfiguration gc = ((Graphics2D) g).getDeviceConfiguration();
+        if (gc != config) {
+            invalidate();
+            config = gc;
+        }
+    }
+
+    public void invalidate() {
+        menu = flush(menu);
+        hud = flush(hud);
+        frozen = flush(frozen);
+        frozenState = null;
+        config = null;
+    }
+
+    private static Image flush(Image image) {
+        if (image != null) {
+            image.flush();
+        }
+        return null;
+    }
+
+    // 每层尺寸固定, 已有图像时直接复用
+    private Image createLayer(Image old, int width, int height, int transparency) {
+        if (old != null) {
+            return old;
+        }
+        return config != null
+                ? config.createCompatibleImage(width, height, transparency)
+                : new BufferedImage(width, height, transparency == Transparency.OPAQUE
+                        ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private static Graphics2D begin(Image image) {
+        Graphics2D g2d = (Graphics2D) image.getGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        return g2d;
+    }
+
+    private static void paintMenu(Graphics g, Difficulty difficulty, boolean canResume) {
+        // 绘制背景
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, TankWarGame.WIDTH, TankWarGame.HEIGHT);
+
+        // 绘制标题
+        g.setColor(Color.YELLOW);
+        g.setFont(TITLE_FONT);
+        g.drawString("坦克大战", 280, 120);
+
+        // 绘制菜单选项
+        g.setFont(MENU_FONT);
+
+        // 继续上次的游戏
+        if (canResume) {
+            g.setColor(Color.GREEN);
+            g.drawString("继续游戏", 330, 170);
+        }
+
+        // 开始游戏
+        g.setColor(Color.WHITE);
+        g.drawString("开始游戏", 330, 220);
+
+        // 难度选择
+        g.setColor(Color.WHITE);
+        g.drawString("难度选择", 330, 270);
+
+        // 显示当前难度
+        g.setColor(Color.CYAN);
+        g.drawString("当前难度: " + difficulty.name(), 330, 320);
+
+        // 退出游戏
+        g.setColor(Color.WHITE);
+        g.drawString("退出游戏", 330, 370);
+
+        // 绘制操作说明
+        g.setColor(Color.GRAY);
+        g.setFont(HINT_FONT);
+        g.drawString(canResume ? "方向键移动, 空格键发射, C 继续游戏" : "方向键移动, 空格键发射",
+                canResume ? 230 : 280, 420);
+
+        // 绘制坦克示例
+        TankSprites.draw(g, true, Direction.UP, 250, 480);  // 玩家坦克
+        TankSprites.draw(g, false, Direction.UP, 500, 480); // 敌人坦克
+    }
+
+    private static void paintHud(Graphics g, RenderView view) {
+        // 绘制分数
+        g.setColor(Color.WHITE);
+        g.setFont(HUD_FONT);
+        g.drawString("分数: " + view.getScore(), 20, 30);
+
+        // 绘制生命
+        g.drawString("生命: " + view.getLives(), 20, 60);
+
+        // 绘制难度
+        g.drawString("难度: " + view.getDifficulty().name(), 20, 90);
+
+        // 绘制暂停提示
+        g.drawString("按 P 暂停", 700, 30);
+    }
+
+    private static void paintPauseScreen(Graphics g) {
+        g.setColor(SHADE);
+        g.fillRect(0, 0, TankWarGame.WIDTH, TankWarGame.HEIGHT);
+
+        g.setColor(Color.WHITE);
+        g.setFont(TITLE_FONT);
+        g.drawString("游戏暂停", 300, 250);
+
+        g.setFont(PROMPT_FONT);
+        g.drawString("按 P 继续", 330, 320);
+        g.drawString("按 ESC 返回菜单", 300, 370);
+    }
+
+    private static void paintGameOver(Graphics g, int score) {
+        g.setColor(SHADE);
+        g.fillRect(0, 0, TankWarGame.WIDTH, TankWarGame.HEIGHT);
+
+        g.setColor(Color.RED);
+        g.setFont(TITLE_FONT);
+        g.drawString("游戏结束", 300, 250);
+
+        g.setColor(Color.WHITE);
+        g.setFont(PROMPT_FONT);
+        g.drawString("最终分数: " + score, 320, 320);
+
+        g.setFont(SMALL_PROMPT_FONT);
+        g.drawString("按任意键返回菜单", 300, 370);
+    }
+}
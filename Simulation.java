@@ -0,0 +1,343 @@
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.locks.LockSupport;
+
+// 模拟线程 - World、录像、存档和菜单逻辑都只在这个线程里运行, 绘制慢了不会拖慢模拟, 模拟慢了也不会卡住 EDT
+// 每轮循环: 取空输入队列 -> 按真实经过的时间推进固定步长的tick -> 把状态复制成渲染帧发布出去 -> 睡到下一个tick到期
+// 和绘制线程之间只有两条通道: 输入走无锁的 InputQueue, 画面走 TripleBuffer, 热路径上没有锁
+class Simulation implements Runnable {
+    private static final int INPUT_CAPACITY = 256;
+
+    private final World world = new World(GameConfig.SEED);
+    private final InputQueue inputs = new InputQueue(INPUT_CAPACITY);
+    private final TripleBuffer<RenderFrame> frames =
+            new TripleBuffer<>(new RenderFrame(), new RenderFrame(), new RenderFrame());
+    private final FramePublisher publisher = new FramePublisher(frames);
+
+    // 当前按住的方向键和尚未送入模拟的开火请求
+    private int heldKeys;
+    private boolean firePending;
+
+    // 录像(未开启时为null)
+    private InputRecorder recorder;
+
+    // 存档(-Dtank.save=none 时为null), 游戏中每隔 CHECKPOINT_SECONDS 存一次
+    private final SaveGame saves = "none".equals(GameConfig.SAVE_FILE) ? null : new SaveGame(Paths.get(GameConfig.SAVE_FILE));
+    private final int checkpointTicks = GameConfig.CHECKPOINT_SECONDS * GameConfig.TICK_RATE;
+    private long nextCheckpointTick;
+
+    private final FixedTimestep timestep =
+            new FixedTimestep(GameConfig.TICK_RATE, GameConfig.MAX_CATCH_UP_TICKS);
+    private final TickSamples samples = new TickSamples(PerfOverlay.HISTORY);
+    private final GameStats stats;
+
+    private volatile boolean running;
+    // 性能叠加层打开时才把tick采样复制进渲染帧
+    private volatile boolean statsWanted = GameConfig.PERF_OVERLAY;
+    private Thread thread;
+
+    public Simulation(GameStats stats) {
+        this.stats = stats;
+        try {
+            world.setLevel(TileMap.load(GameConfig.LEVEL));
+        } catch (IOException e) {
+            System.err.println("无法加载关卡, 使用空场地: " + e.getMessage());
+        }
+        // 先发布一帧菜单画面, 模拟线程启动前绘制线程就有东西可画
+        publish(System.nanoTime());
+    }
+
+    public InputQueue getInputs() {
+        return inputs;
+    }
+
+    public TripleBuffer<RenderFrame> getFrames() {
+        return frames;
+    }
+
+    public void setStatsWanted(boolean statsWanted) {
+        this.statsWanted = statsWanted;
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this, "simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // 停止模拟线程并等它退出; 线程退出前把进行中的一局存档
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        timestep.reset(System.nanoTime());
+        while (running) {
+            long now = System.nanoTime();
+            drainInputs();
+            advance(now);
+            publish(now);
+
+            // 睡到下一个tick到期; 菜单和暂停时 alpha 为0, 每个tick间隔处理一次输入
+            LockSupport.parkNanos((long) ((1 - timestep.alpha()) * timestep.getTickNanos()));
+        }
+        saveOnExit();
+    }
+
+    private void drainInputs() {
+        for (long event = inputs.poll(); event != InputQueue.EMPTY; event = inputs.poll()) {
+            switch (InputQueue.kind(event)) {
+                case InputQueue.KEY_PRESSED:
+                    keyPressed(InputQueue.keyCode(event));
+                    break;
+                case InputQueue.KEY_RELEASED:
+                    keyReleased(InputQueue.keyCode(event));
+                    break;
+                case InputQueue.MOUSE_CLICKED:
+                    mouseClicked(InputQueue.x(event), InputQueue.y(event));
+                    break;
+            }
+        }
+    }
+
+    // 按真实经过的时间推进模拟
+    private void advance(long now) {
+        if (world.getState() == GameState.PLAYING) {
+            int ticks = timestep.advance(now);
+            for (int i = 0; i < ticks && world.getState() == GameState.PLAYING; i++) {
+                int inputs = heldKeys;
+                if (firePending) {
+                    inputs |= World.INPUT_FIRE;
+                    firePending = false;
+                }
+                recordInputs(inputs);
+                samples.beginTick();
+                world.step(inputs);
+                samples.endTick(world);
+                stats.recordTick(world);
+                recordState();
+            }
+
+            // 本局结束, 录像收尾, 不再留下可以继续的存档
+            if (world.getState() == GameState.GAME_OVER) {
+                stopRecording();
+                if (saves != null) {
+                    saves.delete();
+                }
+            } else if (world.getTickCount() >= nextCheckpointTick) {
+                checkpoint();
+                nextCheckpointTick = world.getTickCount() + checkpointTicks;
+            }
+        } else {
+            // 菜单/暂停期间不累积时间, 恢复后不会补跑
+            timestep.reset(now);
+            stats.publish(world);
+        }
+    }
+
+    // 帧时刻取最新一个tick到期的时刻, 绘制线程按自己的当前时刻和它的差插值
+    private void publish(long now) {
+        long time = now - (long) (timestep.alpha() * timestep.getTickNanos());
+        publisher.publish(world, time, saves != null && saves.exists(), statsWanted ? samples : null);
+    }
+
+    private void startGame() {
+        stopRecording();
+        world.start();
+        firePending = false;
+        timestep.reset(System.nanoTime());
+        nextCheckpointTick = checkpointTicks;
+        startRecording();
+    }
+
+    // 从存档继续, 读档后处于暂停状态, 按 P 开始. 继续的一局不录像(录像必须从开局记录)
+    private void resumeGame() {
+        if (saves == null || !saves.exists()) {
+            return;
+        }
+        stopRecording();
+        try {
+            saves.load(world);
+        } catch (IOException e) {
+            System.err.println("无法读取存档, 已删除: " + e.getMessage());
+            saves.delete();
+            world.returnToMenu();
+            return;
+        }
+        heldKeys = 0;
+        firePending = false;
+        timestep.reset(System.nanoTime());
+        nextCheckpointTick = world.getTickCount() + checkpointTicks;
+    }
+
+    // 在两个tick之间存档, 序列化在当前线程, 写文件在后台
+    private void checkpoint() {
+        if (saves != null) {
+            saves.checkpoint(world);
+        }
+    }
+
+    // 退出时同步写完存档, 游戏没有进行中则什么也不做
+    private void saveOnExit() {
+        GameState state = world.getState();
+        if (saves == null || (state != GameState.PLAYING && state != GameState.PAUSED)) {
+            return;
+        }
+        try {
+            saves.saveNow(world);
+        } catch (IOException e) {
+            System.err.println("退出时存档失败: " + e);
+        }
+        stopRecording();
+    }
+
+    // 开启 -Dtank.record=<目录> 时, 每局游戏写一个录像文件
+    private void startRecording() {
+        if (GameConfig.RECORD_DIR == null) {
+            return;
+        }
+        String name = "tank-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".replay";
+        Path file = Paths.get(GameConfig.RECORD_DIR, name);
+        try {
+            Files.createDirectories(file.getParent());
+            recorder = new InputRecorder(Files.newOutputStream(file), world, GameConfig.CHECKSUM_INTERVAL);
+        } catch (IOException e) {
+            System.err.println("无法创建录像文件 " + file + ": " + e);
+            recorder = null;
+        }
+    }
+
+    private void stopRecording() {
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.finish(world.getTickCount());
+        } catch (IOException e) {
+            System.err.println("录像写入失败: " + e);
+        }
+        recorder = null;
+    }
+
+    private void recordInputs(int inputs) {
+        if (recorder != null) {
+            try {
+                recorder.recordInputs(world.getTickCount(), inputs);
+            } catch (IOException e) {
+                recordingFailed(e);
+            }
+        }
+    }
+
+    private void recordState() {
+        if (recorder != null) {
+            try {
+                recorder.recordState(world);
+            } catch (IOException e) {
+                recordingFailed(e);
+            }
+        }
+    }
+
+    private void recordingFailed(IOException e) {
+        System.err.println("录像写入失败, 停止录制: " + e);
+        try {
+            recorder.close();
+        } catch (IOException ignored) {
+            // 已经在报告写入失败
+        }
+        recorder = null;
+    }
+
+    private void keyPressed(int key) {
+        heldKeys |= inputBit(key);
+
+        if (world.getState() == GameState.PLAYING) {
+            // 暂停游戏
+            if (key == KeyEvent.VK_P) {
+                world.pause();
+                checkpoint();
+            }
+        } else if (world.getState() == GameState.PAUSED) {
+            // 继续游戏
+            if (key == KeyEvent.VK_P) {
+                world.resume();
+            }
+            // 返回菜单
+            if (key == KeyEvent.VK_ESCAPE) {
+                checkpoint();
+                stopRecording();
+                world.returnToMenu();
+            }
+        } else if (world.getState() == GameState.MENU) {
+            // 继续上次的游戏
+            if (key == KeyEvent.VK_C) {
+                resumeGame();
+            }
+        } else if (world.getState() == GameState.GAME_OVER) {
+            // 返回菜单
+            world.returnToMenu();
+        }
+    }
+
+    private void keyReleased(int key) {
+        heldKeys &= ~inputBit(key);
+
+        if (world.getState() == GameState.PLAYING) {
+            // 空格键发射子弹(下一个tick生效)
+            if (key == KeyEvent.VK_SPACE) {
+                firePending = true;
+            }
+        }
+    }
+
+    // 方向键对应的输入位
+    private static int inputBit(int key) {
+        switch (key) {
+            case KeyEvent.VK_UP:
+                return World.INPUT_UP;
+            case KeyEvent.VK_RIGHT:
+                return World.INPUT_RIGHT;
+            case KeyEvent.VK_DOWN:
+                return World.INPUT_DOWN;
+            case KeyEvent.VK_LEFT:
+                return World.INPUT_LEFT;
+            default:
+                return 0;
+        }
+    }
+
+    private void mouseClicked(int x, int y) {
+        if (world.getState() == GameState.MENU) {
+            // 继续游戏(有存档时)
+            if (x >= 330 && x <= 470 && y >= 150 && y <= 180 && saves != null && saves.exists()) {
+                resumeGame();
+            }
+            // 开始游戏
+            else if (x >= 330 && x <= 470 && y >= 200 && y <= 230) {
+                startGame();
+            }
+            // 难度选择
+            else if (x >= 330 && x <= 470 && y >= 250 && y <= 280) {
+                world.cycleDifficulty();
+            }
+            // 退出游戏
+            else if (x >= 330 && x <= 470 && y >= 350 && y <= 380) {
+                System.exit(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.Arrays;
+import java.util.List;
+
+// 世界快照 - 联机时服务器每tick发给客户端的状态, 只包含绘制需要的字段
+// 数组按需扩容后反复使用, 服务器和客户端都用 SnapshotHistory 保存最近的一批快照, 稳定运行时不再分配
+// 字段由 SnapshotCodec 直接读写
+class Snapshot {
+    long tick = -1;     // 服务器tick, 跨局连续递增
+    int round;          // 第几局; 不同局的快照之间不做增量
+    int score;
+    int lives;
+    int state;          // GameState 序号
+    int terrainChanges; // 本局已打掉的砖块数, 即地形变化日志的长度
+    long check;         // 服务器生成快照时的校验和(含地形), 见 checksum()
+
+    int playerCount;
+    int[] playerX = new int[4];
+    int[] playerY = new int[4];
+    byte[] playerDir = new byte[4];
+
+    // 敌人按 id 升序(即生成顺序), 增量编码按 id 找上一帧的同一个敌人
+    int enemyCount;
+    int[] enemyId = new int[16];
+    int[] enemyX = new int[16];
+    int[] enemyY = new int[16];
+    byte[] enemyDir = new byte[16];
+
+    int bulletCount;
+    int[] bulletX = new int[64];
+    int[] bulletY = new int[64];
+    byte[] bulletDir = new byte[64];
+    byte[] bulletFaction = new byte[64];
+
+    int explosionCount;
+    int[] explosionX = new int[8];
+    int[] explosionY = new int[8];
+    int[] explosionRadius = new int[8];
+
+    // 从世界复制当前状态
+    public void capture(World world, long tick, int round) {
+        this.tick = tick;
+        this.round = round;
+        score = world.getScore();
+        lives = world.getLives();
+        state = world.getState().ordinal();
+        terrainChanges = world.getTerrain().getChangeCount();
+
+        List<PlayerTank> players = world.getPlayers();
+        setPlayerCount(players.size());
+        for (int k = 0; k < playerCount; k++) {
+            PlayerTank player = players.get(k);
+            playerX[k] = player.getX();
+            playerY[k] = player.getY();
+            playerDir[k] = (byte) player.getDirection().ordinal();
+        }
+
+        EnemyPool enemies = world.getEnemies();
+        setEnemyCount(enemies.size());
+        for (int i = 0; i < enemyCount; i++) {
+            enemyId[i] = enemies.getId(i);
+            enemyX[i] = enemies.getX(i);
+            enemyY[i] = enemies.getY(i);
+            enemyDir[i] = (byte) enemies.getDirection(i).ordinal();
+        }
+
+        BulletPool bullets = world.getBullets();
+        setBulletCount(bullets.size());
+        for (int i = 0; i < bulletCount; i++) {
+            bulletX[i] = bullets.getX(i);
+            bulletY[i] = bullets.getY(i);
+            bulletDir[i] = (byte) bullets.getDirection(i).ordinal();
+            bulletFaction[i] = (byte) (bullets.isPlayerBullet(i) ? BulletPool.PLAYER : BulletPool.ENEMY);
+        }
+
+        ExplosionPool explosions = world.getExplosions();
+        setExplosionCount(explosions.size());
+        for (int i = 0; i < explosionCount; i++) {
+            explosionX[i] = explosions.getX(i);
+            explosionY[i] = explosions.getY(i);
+            explosionRadius[i] = explosions.getRadius(i);
+        }
+        check = checksum(world.getTerrain());
+    }
+
+    public void setPlayerCount(int count) {
+        if (playerX.length < count) {
+            int capacity = Math.max(count, playerX.length * 2);
+            playerX = Arrays.copyOf(playerX, capacity);
+            playerY = Arrays.copyOf(playerY, capacity);
+            playerDir = Arrays.copyOf(playerDir, capacity);
+        }
+        playerCount = count;
+    }
+
+    public void setEnemyCount(int count) {
+        if (enemyX.length < count) {
+            int capacity = Math.max(count, enemyX.length * 2);
+            enemyId = Arrays.copyOf(enemyId, capacity);
+            enemyX = Arrays.copyOf(enemyX, capacity);
+            enemyY = Arrays.copyOf(enemyY, capacity);
+            enemyDir = Arrays.copyOf(enemyDir, capacity);
+        }
+        enemyCount = count;
+    }
+
+    public void setBulletCount(int count) {
+        if (bulletX.length < count) {
+            int capacity = Math.max(count, bulletX.length * 2);
+            bulletX = Arrays.copyOf(bulletX, capacity);
+            bulletY = Arrays.copyOf(bulletY, capacity);
+            bulletDir = Arrays.copyOf(bulletDir, capacity);
+            bulletFaction = Arrays.copyOf(bulletFaction, capacity);
+        }
+        bulletCount = count;
+    }
+
+    public void setExplosionCount(int count) {
+        if (explosionX.length < count) {
+            int capacity = Math.max(count, explosionX.length * 2);
+            explosionX = Arrays.copyOf(explosionX, capacity);
+            explosionY = Arrays.copyOf(explosionY, capacity);
+            explosionRadius = Arrays.copyOf(explosionRadius, capacity);
+        }
+        explosionCount = count;
+    }
+
+    // 快照内容和地形的校验和, 客户端解码后与服务器发来的值比较
+    public long checksum(TileMap terrain) {
+        long h = 17;
+        h = mix(h, tick);
+        h = mix(h, round);
+        h = mix(h, score);
+        h = mix(h, lives);
+        h = mix(h, state);
+        h = mix(h, terrainChanges);
+        for (int k = 0; k < playerCount; k++) {
+            h = mix(h, playerX[k]);
+            h = mix(h, playerY[k]);
+            h = mix(h, playerDir[k]);
+        }
+        for (int i = 0; i < enemyCount; i++) {
+            h = mix(h, enemyId[i]);
+            h = mix(h, enemyX[i]);
+            h = mix(h, enemyY[i]);
+            h = mix(h, enemyDir[i]);
+        }
+        for (int i = 0; i < bulletCount; i++) {
+            h = mix(h, bulletX[i]);
+            h = mix(h, bulletY[i]);
+            h = mix(h, bulletDir[i]);
+            h = mix(h, bulletFaction[i]);
+        }
+        for (int i = 0; i < explosionCount; i++) {
+            h = mix(h, explosionX[i]);
+            h = mix(h, explosionY[i]);
+            h = mix(h, explosionRadius[i]);
+        }
+        return mix(h, terrain.checksum(17));
+    }
+
+    private static long mix(long h, long value) {
+        h ^= value;
+        h *= 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+}
@@ -0,0 +1,313 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// 快照编码 - 把快照相对客户端最后确认收到的基准快照做增量编码, 没有基准时发全量
+//
+// 消息体:
+//   tick, 基准距离(0 表示全量), 局号, 分数, 生命, 状态      变长整数
+//   地形: 起始序号, 结束序号, 之间每个被打掉的格子下标     变长整数; 起始为0时客户端先恢复关卡地形
+//   玩家: 数量, 每个玩家一个标志字节 + 字段
+//   敌人: 数量, 每个敌人一个 (id差 << 4 | 标志) + 字段; id差是与前一个敌人的 id 之差
+//   子弹: 数量, 然后交替的 (可预测的个数, 需要发送的个数, 每颗 RECORD_BYTES 字节)
+//   爆炸: 数量, 每个 RECORD_BYTES 字节
+//   校验和低32位                                            4字节
+//
+// 坦克字段: 基准中没有这个坦克时发 TANK_BYTES 字节的打包值, 否则只发变化的坐标差(zigzag 变长整数)和方向
+// 子弹在基准中同一下标, 方向阵营相同且位置正好是匀速飞过去的(飞行距离按 GameConfig.perTicks 换算), 不需要发送
+// 打包: x, y 各 COORD_BITS 位, 方向3位, 阵营1位; 爆炸半径是5起步每次加2的奇数, 只存半径/2(4位)
+// COORD_BITS 按世界大小取刚好放得下 0..max(宽, 高) 的位数, 一屏(800x600)时是10位, 每条记录3字节;
+// 服务器和客户端的世界大小必须相同, 不同时客户端读 WELCOME 里的关卡就会报地形尺寸不符; tick频率也必须相同(见 GameClient)
+final class SnapshotCodec {
+    private static final int NEW = 1;
+    private static final int X = 1 << 1;
+    private static final int Y = 1 << 2;
+    private static final int DIR = 1 << 3;
+    private static final int FLAG_BITS = 4;
+
+    // 子弹坐标最大到 World.WIDTH / HEIGHT(出界才移除), 所以按最大值本身算位数
+    private static final int COORD_BITS = 32 - Integer.numberOfLeadingZeros(Math.max(World.WIDTH, World.HEIGHT));
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1;
+    private static final int DIR_SHIFT = 2 * COORD_BITS;
+    private static final int TANK_BYTES = (DIR_SHIFT + 3 + 7) / 8;
+    private static final int RECORD_BYTES = (DIR_SHIFT + 4 + 7) / 8; // 子弹和爆炸
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private SnapshotCodec() {
+    }
+
+    // 编码后最多占用的字节数, 调用 write 之前确认缓冲区足够
+    public static int maxSize(Snapshot current, Snapshot base) {
+        int terrainFrom = base != null && base.round == current.round ? base.terrainChanges : 0;
+        return 64
+                + 3 * (current.terrainChanges - terrainFrom)
+                + 12 * current.playerCount
+                + 16 * current.enemyCount
+                + (10 + RECORD_BYTES) * current.bulletCount
+                + RECORD_BYTES * current.explosionCount;
+    }
+
+    // base 为 null 或与 current 不是同一局时发全量
+    public static void write(ByteBuffer out, Snapshot current, Snapshot base, TileMap terrain) {
+        if (base != null && base.round != current.round) {
+            base = null;
+        }
+        long distance = base != null ? current.tick - base.tick : 0;
+        int bulletStep = base != null ? GameConfig.perTicks(BulletPool.SPEED, base.tick, current.tick) : 0;
+
+        VarInt.put(out, current.tick);
+        VarInt.put(out, distance);
+        VarInt.put(out, current.round);
+        VarInt.put(out, VarInt.zigzag(current.score));
+        VarInt.put(out, VarInt.zigzag(current.lives));
+        VarInt.put(out, current.state);
+
+        int terrainFrom = base != null ? base.terrainChanges : 0;
+        VarInt.put(out, terrainFrom);
+        VarInt.put(out, current.terrainChanges);
+        for (int i = terrainFrom; i < current.terrainChanges; i++) {
+            VarInt.put(out, terrain.getChange(i));
+        }
+
+        VarInt.put(out, current.playerCount);
+        for (int k = 0; k < current.playerCount; k++) {
+            if (base != null && k < base.playerCount) {
+                writeTank(out, 0, current.playerX[k], current.playerY[k], current.playerDir[k],
+                        base.playerX[k], base.playerY[k], base.playerDir[k]);
+            } else {
+                writeNewTank(out, 0, current.playerX[k], current.playerY[k], current.playerDir[k]);
+            }
+        }
+
+        // 两边的敌人都按 id 升序, 同时往前走找同一个敌人
+        VarInt.put(out, current.enemyCount);
+        int previousId = -1;
+        int b = 0;
+        for (int i = 0; i < current.enemyCount; i++) {
+            int id = current.enemyId[i];
+            if (id <= previousId) {
+                throw new IllegalStateException("敌人 id 不是升序: " + previousId + ", " + id);
+            }
+            long gap = (long) (id - previousId) << FLAG_BITS;
+            previousId = id;
+            if (base != null) {
+                while (b < base.enemyCount && base.enemyId[b] < id) {
+                    b++;
+                }
+            }
+            if (base != null && b < base.enemyCount && base.enemyId[b] == id) {
+                writeTank(out, gap, current.enemyX[i], current.enemyY[i], current.enemyDir[i],
+                        base.enemyX[b], base.enemyY[b], base.enemyDir[b]);
+            } else {
+                writeNewTank(out, gap, current.enemyX[i], current.enemyY[i], current.enemyDir[i]);
+            }
+        }
+
+        VarInt.put(out, current.bulletCount);
+        int i = 0;
+        while (i < current.bulletCount) {
+            int predicted = 0;
+            while (i + predicted < current.bulletCount && isPredicted(current, base, bulletStep, i + predicted)) {
+                predicted++;
+            }
+            int sent = 0;
+            while (i + predicted + sent < current.bulletCount
+                    && !isPredicted(current, base, bulletStep, i + predicted + sent)) {
+                sent++;
+            }
+            VarInt.put(out, predicted);
+            VarInt.put(out, sent);
+            for (int j = i + predicted; j < i + predicted + sent; j++) {
+                putPacked(out, RECORD_BYTES, quantize(current.bulletX[j]) | quantize(current.bulletY[j]) << COORD_BITS
+                        | (long) current.bulletDir[j] << DIR_SHIFT | (long) current.bulletFaction[j] << DIR_SHIFT + 3);
+            }
+            i += predicted + sent;
+        }
+
+        VarInt.put(out, current.explosionCount);
+        for (int e = 0; e < current.explosionCount; e++) {
+            putPacked(out, RECORD_BYTES, quantize(current.explosionX[e]) | quantize(current.explosionY[e]) << COORD_BITS
+                    | (long) (current.explosionRadius[e] >> 1) << DIR_SHIFT);
+        }
+
+        out.putInt((int) current.check);
+    }
+
+    // 解码到 history 中该tick的槽位; terrain 是客户端的地形副本, 按消息中的变化更新, level 是本局的初始地形
+    public static Snapshot read(ByteBuffer in, SnapshotHistory history, TileMap terrain, TileMap level)
+            throws IOException {
+        long tick = VarInt.get(in);
+        long distance = VarInt.get(in);
+        Snapshot base = null;
+        if (distance != 0) {
+            if (distance >= history.capacity()) {
+                throw new IOException("基准快照太旧: tick " + tick + " 基准距离 " + distance);
+            }
+            base = history.get(tick - distance);
+            if (base == null) {
+                throw new IOException("缺少基准快照: tick " + (tick - distance));
+            }
+        }
+        int bulletStep = base != null ? GameConfig.perTicks(BulletPool.SPEED, tick - distance, tick) : 0;
+
+        Snapshot current = history.slot(tick);
+        current.tick = tick;
+        current.round = (int) VarInt.get(in);
+        current.score = (int) VarInt.unzigzag(VarInt.get(in));
+        current.lives = (int) VarInt.unzigzag(VarInt.get(in));
+        current.state = (int) VarInt.get(in);
+
+        int terrainFrom = (int) VarInt.get(in);
+        int terrainTo = (int) VarInt.get(in);
+        if (terrainFrom == 0) {
+            terrain.resetTo(level);
+        }
+        if (terrain.getChangeCount() < terrainFrom) {
+            throw new IOException("地形变化不连续: 已有 " + terrain.getChangeCount() + ", 从 " + terrainFrom + " 开始");
+        }
+        for (int i = terrainFrom; i < terrainTo; i++) {
+            int index = (int) VarInt.get(in);
+            if (i >= terrain.getChangeCount()) {
+                terrain.destroy(index);
+            }
+        }
+        current.terrainChanges = terrainTo;
+
+        current.setPlayerCount((int) VarInt.get(in));
+        for (int k = 0; k < current.playerCount; k++) {
+            int flags = (int) VarInt.get(in);
+            if ((flags & NEW) != 0) {
+                long packed = getPacked(in, TANK_BYTES);
+                current.playerX[k] = coordX(packed);
+                current.playerY[k] = coordY(packed);
+                current.playerDir[k] = (byte) (packed >>> DIR_SHIFT & 0x7);
+            } else {
+                current.playerX[k] = base.playerX[k] + readDelta(in, flags, X);
+                current.playerY[k] = base.playerY[k] + readDelta(in, flags, Y);
+                current.playerDir[k] = (flags & DIR) != 0 ? in.get() : base.playerDir[k];
+            }
+        }
+
+        current.setEnemyCount((int) VarInt.get(in));
+        int id = -1;
+        int b = 0;
+        for (int i = 0; i < current.enemyCount; i++) {
+            long tag = VarInt.get(in);
+            int flags = (int) (tag & ((1 << FLAG_BITS) - 1));
+            id += (int) (tag >>> FLAG_BITS);
+            current.enemyId[i] = id;
+            if ((flags & NEW) != 0) {
+                long packed = getPacked(in, TANK_BYTES);
+                current.enemyX[i] = coordX(packed);
+                current.enemyY[i] = coordY(packed);
+                current.enemyDir[i] = (byte) (packed >>> DIR_SHIFT & 0x7);
+            } else {
+                while (base.enemyId[b] < id) {
+                    b++;
+                }
+                current.enemyX[i] = base.enemyX[b] + readDelta(in, flags, X);
+                current.enemyY[i] = base.enemyY[b] + readDelta(in, flags, Y);
+                current.enemyDir[i] = (flags & DIR) != 0 ? in.get() : base.enemyDir[b];
+            }
+        }
+
+        current.setBulletCount((int) VarInt.get(in));
+        int i = 0;
+        while (i < current.bulletCount) {
+            int predicted = (int) VarInt.get(in);
+            int sent = (int) VarInt.get(in);
+            for (int j = i; j < i + predicted; j++) {
+                Direction dir = DIRECTIONS[base.bulletDir[j]];
+                current.bulletX[j] = base.bulletX[j] + dir.getDx() * bulletStep;
+                current.bulletY[j] = base.bulletY[j] + dir.getDy() * bulletStep;
+                current.bulletDir[j] = base.bulletDir[j];
+                current.bulletFaction[j] = base.bulletFaction[j];
+            }
+            for (int j = i + predicted; j < i + predicted + sent; j++) {
+                long packed = getPacked(in, RECORD_BYTES);
+                current.bulletX[j] = coordX(packed);
+                current.bulletY[j] = coordY(packed);
+                current.bulletDir[j] = (byte) (packed >>> DIR_SHIFT & 0x7);
+                current.bulletFaction[j] = (byte) (packed >>> DIR_SHIFT + 3 & 0x1);
+            }
+            i += predicted + sent;
+        }
+
+        current.setExplosionCount((int) VarInt.get(in));
+        for (int e = 0; e < current.explosionCount; e++) {
+            long packed = getPacked(in, RECORD_BYTES);
+            current.explosionX[e] = coordX(packed);
+            current.explosionY[e] = coordY(packed);
+            current.explosionRadius[e] = (int) (packed >>> DIR_SHIFT & 0xF) << 1 | 1;
+        }
+
+        int expected = in.getInt();
+        current.check = current.checksum(terrain);
+        if ((int) current.check != expected) {
+            throw new IOException("快照校验失败: tick " + tick);
+        }
+        return current;
+    }
+
+    private static void writeNewTank(ByteBuffer out, long tag, int x, int y, byte dir) {
+        VarInt.put(out, tag | NEW);
+        putPacked(out, TANK_BYTES, quantize(x) | quantize(y) << COORD_BITS | (long) dir << DIR_SHIFT);
+    }
+
+    private static void writeTank(ByteBuffer out, long tag, int x, int y, byte dir, int baseX, int baseY, byte baseDir) {
+        int flags = (x != baseX ? X : 0) | (y != baseY ? Y : 0) | (dir != baseDir ? DIR : 0);
+        VarInt.put(out, tag | flags);
+        if (x != baseX) {
+            VarInt.put(out, VarInt.zigzag(x - baseX));
+        }
+        if (y != baseY) {
+            VarInt.put(out, VarInt.zigzag(y - baseY));
+        }
+        if (dir != baseDir) {
+            out.put(dir);
+        }
+    }
+
+    private static int readDelta(ByteBuffer in, int flags, int field) {
+        return (flags & field) != 0 ? (int) VarInt.unzigzag(VarInt.get(in)) : 0;
+    }
+
+    // 基准中同一下标的子弹匀速飞了 step 像素后正好在这里
+    private static boolean isPredicted(Snapshot current, Snapshot base, int step, int i) {
+        if (base == null || i >= base.bulletCount
+                || base.bulletDir[i] != current.bulletDir[i] || base.bulletFaction[i] != current.bulletFaction[i]) {
+            return false;
+        }
+        Direction dir = DIRECTIONS[current.bulletDir[i]];
+        return current.bulletX[i] == base.bulletX[i] + dir.getDx() * step
+                && current.bulletY[i] == base.bulletY[i] + dir.getDy() * step;
+    }
+
+    // 坐标截到 COORD_BITS 位; 场地内的坐标都在范围内, 不会丢精度
+    private static long quantize(int value) {
+        return Math.max(0, Math.min(COORD_MASK, value));
+    }
+
+    private static int coordX(long packed) {
+        return (int) (packed & COORD_MASK);
+    }
+
+    private static int coordY(long packed) {
+        return (int) (packed >>> COORD_BITS & COORD_MASK);
+    }
+
+    // 低字节在前写出 value 的低 bytes 个字节
+    private static void putPacked(ByteBuffer out, int bytes, long value) {
+        for (int i = 0; i < bytes; i++) {
+            out.put((byte) (value >>> 8 * i));
+        }
+    }
+
+    private static long getPacked(ByteBuffer in, int bytes) {
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value |= (in.get() & 0xFFL) << 8 * i;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,30 @@
+// 最近快照的环形缓冲区, 按tick取模存放; 服务器用它找客户端确认过的基准快照, 客户端用它解码增量
+// 快照对象在槽位中反复使用, 不随tick分配
+class SnapshotHistory {
+    private final Snapshot[] slots;
+
+    public SnapshotHistory(int capacity) {
+        slots = new Snapshot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Snapshot();
+        }
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    // 存放tick的槽位, 覆盖其中更早的快照
+    public Snapshot slot(long tick) {
+        return slots[(int) Math.floorMod(tick, (long) slots.length)];
+    }
+
+    // tick的快照, 已被覆盖或从未收到时返回null
+    public Snapshot get(long tick) {
+        if (tick < 0) {
+            return null;
+        }
+        Snapshot snapshot = slot(tick);
+        return snapshot.tick == tick ? snapshot : null;
+    }
+}
@@ -0,0 +1,155 @@
+import java.util.Arrays;
+
+// 均匀网格空间哈希 - 碰撞检测的粗筛阶段
+// 每帧把实体按包围盒放入覆盖到的格子, 查询时只检查附近格子里的实体
+class SpatialHash {
+    private final int cellSize;
+    private final int cols;
+    private final int rows;
+
+    // 按格子排序后的实体下标: 格子c的内容是 items[cellStart[c] .. cellStart[c + 1])
+    private final int[] cellStart;
+    private final int[] cellCursor;
+    private int[] items = new int[64];
+
+    // 实体包围盒, 下标即插入顺序
+    private int[] boxX = new int[16];
+    private int[] boxY = new int[16];
+    private int[] boxW = new int[16];
+    private int[] boxH = new int[16];
+    private int size;
+
+    // 查询去重用: 一个实体可能跨多个格子
+    private int[] queryStamp = new int[16];
+    private int stamp;
+
+    public SpatialHash(int worldWidth, int worldHeight, int cellSize) {
+        this.cellSize = cellSize;
+        this.cols = (worldWidth + cellSize - 1) / cellSize;
+        this.rows = (worldHeight + cellSize - 1) / cellSize;
+        cellStart = new int[cols * rows + 1];
+        cellCursor = new int[cols * rows];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // 添加一个实体, 返回它的下标(等于添加顺序)
+    public int add(int x, int y, int width, int height) {
+        if (size == boxX.length) {
+            int newCapacity = size * 2;
+            boxX = Arrays.copyOf(boxX, newCapacity);
+            boxY = Arrays.copyOf(boxY, newCapacity);
+            boxW = Arrays.copyOf(boxW, newCapacity);
+            boxH = Arrays.copyOf(boxH, newCapacity);
+            queryStamp = Arrays.copyOf(queryStamp, newCapacity);
+        }
+        boxX[size] = x;
+        boxY[size] = y;
+        boxW[size] = width;
+        boxH[size] = height;
+        return size++;
+    }
+
+    // 全部实体添加完后调用, 用计数排序把下标分配到格子里
+    public void build() {
+        Arrays.fill(cellStart, 0);
+
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            int c0 = col(boxX[i]), c1 = col(boxX[i] + boxW[i] - 1);
+            int r0 = row(boxY[i]), r1 = row(boxY[i] + boxH[i] - 1);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    cellStart[r * cols + c + 1]++;
+                }
+            }
+            total += (c1 - c0 + 1) * (r1 - r0 + 1);
+        }
+
+        // 前缀和
+        for (int c = 0; c < cols * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+            cellCursor[c] = cellStart[c];
+        }
+
+        if (items.length < total) {
+            items = new int[Math.max(total, items.length * 2)];
+        }
+        for (int i = 0; i < size; i++) {
+            int c0 = col(boxX[i]), c1 = col(boxX[i] + boxW[i] - 1);
+            int r0 = row(boxY[i]), r1 = row(boxY[i] + boxH[i] - 1);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    items[cellCursor[r * cols + c]++] = i;
+                }
+            }
+        }
+    }
+
+    // 返回与给定矩形相交的下标最小的实体, 没有则返回-1
+    // 取最小下标是为了和按列表顺序遍历的暴力检测结果一致
+    public int queryFirst(int x, int y, int width, int height) {
+        int best = -1;
+        int c0 = col(x), c1 = col(x + width - 1);
+        int r0 = row(y), r1 = row(y + height - 1);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * cols + c;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int i = items[k];
+                    if ((best < 0 || i < best) && intersects(i, x, y, width, height)) {
+                        best = i;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // 把与给定矩形相交的实体下标(不重复)写入out, 返回个数
+    public int query(int x, int y, int width, int height, int[] out) {
+        stamp++;
+        int found = 0;
+        int c0 = col(x), c1 = col(x + width - 1);
+        int r0 = row(y), r1 = row(y + height - 1);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * cols + c;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int i = items[k];
+                    if (queryStamp[i] != stamp) {
+                        queryStamp[i] = stamp;
+                        if (intersects(i, x, y, width, height) && found < out.length) {
+                            out[found++] = i;
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private boolean intersects(int i, int x, int y, int width, int height) {
+        return overlaps(boxX[i], boxY[i], boxW[i], boxH[i], x, y, width, height);
+    }
+
+    // 与 Rectangle.intersects 相同的判定(边缘相接不算相交)
+    static boolean overlaps(int ax, int ay, int aw, int ah, int bx, int by, int bw, int bh) {
+        return ax < bx + bw && bx < ax + aw && ay < by + bh && by < ay + ah;
+    }
+
+    // 坐标换算到格子, 超出场地的部分归到边缘格子
+    private int col(int x) {
+        return Math.max(0, Math.min(cols - 1, Math.floorDiv(x, cellSize)));
+    }
+
+    private int row(int y) {
+        return Math.max(0, Math.min(rows - 1, Math.floorDiv(y, cellSize)));
+    }
+}
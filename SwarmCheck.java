@@ -0,0 +1,64 @@
+// 蜂群性能检查 - 无界面运行蜂群规模的世界, 敌人数达到上限后测量每个tick的耗时, 超过目标时以状态1退出
+// 目标: 10000 个敌人时 p99 tick耗时不超过一个tick的时间(100Hz 即 10ms), 参考机器为8核, 敌人并行更新
+// 用法: java -Dtank.enemyUpdate=parallel SwarmCheck [敌人数] [测量tick数]
+//       -Dtank.swarm.budgetMs=<毫秒> 覆盖耗时目标
+class SwarmCheck {
+    private static final int WARMUP_TICKS = 1000;
+
+    public static void main(String[] args) {
+        int enemies = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        double budgetMs = Double.parseDouble(System.getProperty("tank.swarm.budgetMs",
+                String.valueOf(1000.0 / GameConfig.TICK_RATE)));
+
+        World world = new World(42);
+        world.setMaxEnemies(enemies);
+        world.setMaxEnemyBullets(enemies);
+        world.setSpawnBatch(enemies);
+        world.setStartingLives(Integer.MAX_VALUE); // 测的是引擎, 玩家不会死
+        world.setDifficulty(Difficulty.HARD);
+        world.start();
+
+        // 预热: 让敌人生成满, JIT 编译完成
+        for (int i = 0; i < WARMUP_TICKS || world.getEnemies().size() < enemies; i++) {
+            world.step(0);
+        }
+
+        SampleRing tickTimes = new SampleRing(ticks);
+        AiScheduler ai = world.getAiScheduler();
+        long bullets = 0;
+        long decisions = 0;
+        long deferred = 0;
+        int maxDecisions = 0;
+        int maxDeferred = 0;
+        for (int i = 0; i < ticks; i++) {
+            long start = System.nanoTime();
+            world.step(i % 10 == 0 ? World.INPUT_FIRE : 0);
+            tickTimes.add(System.nanoTime() - start);
+            bullets += world.getBullets().size();
+            decisions += ai.getDecisions();
+            deferred += ai.getDeferred();
+            maxDecisions = Math.max(maxDecisions, ai.getDecisions());
+            maxDeferred = Math.max(maxDeferred, ai.getDeferred());
+        }
+        tickTimes.sortSamples();
+
+        double p50 = tickTimes.percentile(50) / 1e6;
+        double p99 = tickTimes.percentile(99) / 1e6;
+        double max = tickTimes.max() / 1e6;
+        System.out.printf("蜂群: %d 敌人, 平均 %d 子弹, %s 更新, %d 核%n", world.getEnemies().size(),
+                bullets / ticks, GameConfig.UPDATE_MODE.name().toLowerCase(), Runtime.getRuntime().availableProcessors());
+        System.out.printf("AI决策/tick: 平均 %.1f, 最多 %d (预算 %d); 推迟: 平均 %.1f, 最多 %d%n",
+                decisions / (double) ticks, maxDecisions, ai.getBudget(), deferred / (double) ticks, maxDeferred);
+        System.out.printf("tick耗时: p50 %.2f ms, p99 %.2f ms, max %.2f ms; 目标 p99 <= %.2f ms%n", p50, p99, max, budgetMs);
+
+        if (world.getState() != GameState.PLAYING) {
+            System.err.println("检查失败: 游戏提前结束 (" + world.getState() + ")");
+            System.exit(1);
+        }
+        if (p99 > budgetMs) {
+            System.err.println("检查失败: p99 tick耗时超过目标");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import java.nio.ByteBuffer;
+
+// 坦克基类
+abstract class Tank {
+    // 100Hz 下每tick移动的像素
+    static final int SPEED = 3;
+
+    protected int x, y;
+    protected int prevX, prevY; // 上一个tick的位置, 用于渲染插值
+    protected int dx, dy;
+    protected int width = 40;
+    protected int height = 40;
+    protected int speed = SPEED; // 本tick移动的像素, World 每tick按频率换算后设置
+    protected Direction direction = Direction.UP;
+
+    public Tank(int x, int y) {
+        this.x = x;
+        this.y = y;
+        this.prevX = x;
+        this.prevY = y;
+    }
+
+    public void update() {
+        prevX = x;
+        prevY = y;
+
+        x += dx;
+        y += dy;
+        clampToWorld();
+    }
+
+    // 边界检查
+    protected void clampToWorld() {
+        if (x < 0) {
+            x = 0;
+        } else if (x > World.WIDTH - width) {
+            x = World.WIDTH - width;
+        }
+
+        if (y < 0) {
+            y = 0;
+        } else if (y > World.HEIGHT - height) {
+            y = World.HEIGHT - height;
+        }
+    }
+
+    public void setSpeed(int speed) {
+        this.speed = speed;
+    }
+
+    public void undoMove() {
+        x -= dx;
+        y -= dy;
+    }
+
+    // 移动后压到墙上时退回: 先只退回x, 再只退回y, 都不行才退回原位, 这样斜着贴墙时还能沿墙滑动
+    public void resolveTerrain(TileMap terrain) {
+        if (!terrain.blocks(x, y, width, height)) {
+            return;
+        }
+        if (!terrain.blocks(prevX, y, width, height)) {
+            x = prevX;
+        } else if (!terrain.blocks(x, prevY, width, height)) {
+            y = prevY;
+        } else {
+            x = prevX;
+            y = prevY;
+        }
+    }
+
+    // 车身与矩形(x, y, width, height)是否相交, 直接比较int字段, 不创建 Rectangle
+    public boolean intersects(int otherX, int otherY, int otherWidth, int otherHeight) {
+        return SpatialHash.overlaps(x, y, width, height, otherX, otherY, otherWidth, otherHeight);
+    }
+
+    public boolean intersects(Tank other) {
+        return intersects(other.x, other.y, other.width, other.height);
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    // alpha: 在上一个tick和当前tick位置之间插值的比例
+    public int renderX(double alpha) {
+        return (int) Math.round(prevX + (x - prevX) * alpha);
+    }
+
+    public int renderY(double alpha) {
+        return (int) Math.round(prevY + (y - prevY) * alpha);
+    }
+
+    // 复制 other 的位置和朝向(渲染帧用)
+    public void copyFrom(Tank other) {
+        x = other.x;
+        y = other.y;
+        prevX = other.prevX;
+        prevY = other.prevY;
+        dx = other.dx;
+        dy = other.dy;
+        direction = other.direction;
+    }
+
+    public void fire(BulletPool bullets) {
+        int bulletX = x + width / 2 - 3;
+        int bulletY = y + height / 2 - 3;
+
+        bullets.spawn(bulletX, bulletY, direction, isPlayerBullet());
+
+        GameEvents.BulletFire event = new GameEvents.BulletFire();
+        if (event.shouldCommit()) {
+            event.player = isPlayerBullet();
+            event.x = bulletX;
+            event.y = bulletY;
+            event.direction = direction.name();
+            event.bullets = bullets.size();
+            event.commit();
+        }
+    }
+
+    // 存档: 位置、上一tick的位置、速度和方向
+    void writeState(ByteBuffer out) {
+        VarInt.put(out, VarInt.zigzag(x));
+        VarInt.put(out, VarInt.zigzag(y));
+        VarInt.put(out, VarInt.zigzag(prevX));
+        VarInt.put(out, VarInt.zigzag(prevY));
+        VarInt.put(out, VarInt.zigzag(dx));
+        VarInt.put(out, VarInt.zigzag(dy));
+        out.put((byte) direction.ordinal());
+    }
+
+    void readState(ByteBuffer in) {
+        x = (int) VarInt.unzigzag(VarInt.get(in));
+        y = (int) VarInt.unzigzag(VarInt.get(in));
+        prevX = (int) VarInt.unzigzag(VarInt.get(in));
+        prevY = (int) VarInt.unzigzag(VarInt.get(in));
+        dx = (int) VarInt.unzigzag(VarInt.get(in));
+        dy = (int) VarInt.unzigzag(VarInt.get(in));
+        direction = Direction.values()[in.get()];
+    }
+
+    public abstract boolean isPlayerBullet();
+}
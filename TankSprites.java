@@ -0,0 +1,136 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// 坦克精灵缓存 - 每种坦克 × 8个方向只画一次, 存成与屏幕兼容的图像
+// 之后绘制一辆坦克只需要一次 drawImage; 显示配置变化(换显示器, 改色深)时整体重建
+final class TankSprites {
+    // 履带和炮管会超出40x40的车身, 图像四周各留10像素
+    private static final int PADDING = 10;
+    private static final int SIZE = 40 + PADDING * 2;
+
+    private static final Color PLAYER_DARK = new Color(0, 100, 0);
+    private static final Color ENEMY_DARK = new Color(150, 0, 0);
+
+    // 只在绘制线程(被动模式是EDT, 主动模式是渲染线程)中访问
+    private static GraphicsConfiguration config;
+    private static final Image[][] sprites = new Image[2][Direction.values().length];
+
+    private TankSprites() {
+    }
+
+    // 在(x, y)处绘制坦克, 坐标含义与坦克位置相同(车身左上角)
+    public static void draw(Graphics g, boolean player, Direction direction, int x, int y) {
+        GraphicsConfiguration gc = ((Graphics2D) g).getDeviceConfiguration();
+        // 画到离屏图像(界面层缓存)时沿用已有的精灵, 不为它重建
+        if (gc != config && (config == null || gc.getDevice().getType() != GraphicsDevice.TYPE_IMAGE_BUFFER)) {
+            invalidate();
+            config = gc;
+        }
+
+        Image[] row = sprites[player ? 0 : 1];
+        Image sprite = row[direction.ordinal()];
+        if (sprite == null) {
+            sprite = createSprite(gc, player, direction);
+            row[direction.ordinal()] = sprite;
+        }
+        g.drawImage(sprite, x - PADDING, y - PADDING, null);
+    }
+
+    public static void invalidate() {
+        for (Image[] row : sprites) {
+            for (int i = 0; i < row.length; i++) {
+                if (row[i] != null) {
+                    row[i].flush();
+                    row[i] = null;
+                }
+            }
+        }
+        config = null;
+    }
+
+    private static Image createSprite(GraphicsConfiguration gc, boolean player, Direction direction) {
+        Image image = gc != null
+                ? gc.createCompatibleImage(SIZE, SIZE, Transparency.TRANSLUCENT)
+                : new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+
+        Graphics2D g2d = (Graphics2D) image.getGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            paintTank(g2d, PADDING, PADDING, player, direction);
+        } finally {
+            g2d.dispose();
+        }
+        return image;
+    }
+
+    private static void paintTank(Graphics2D g2d, int x, int y, boolean player, Direction direction) {
+        // 坦克颜色
+        Color mainColor = player ? Color.GREEN : Color.RED;
+        Color darkColor = player ? PLAYER_DARK : ENEMY_DARK;
+
+        // 坦克底座
+        g2d.setColor(mainColor);
+        g2d.fillRect(x, y, 40, 40);
+
+        // 坦克履带
+        g2d.setColor(darkColor);
+        g2d.fillRect(x - 5, y, 5, 40);
+        g2d.fillRect(x + 40, y, 5, 40);
+
+        // 坦克炮塔
+        g2d.setColor(darkColor);
+        g2d.fillOval(x + 5, y + 5, 30, 30);
+
+        // 坦克炮管（根据方向绘制）
+        g2d.setColor(Color.BLACK);
+        paintCannon(g2d, x, y, direction);
+
+        // 坦克观察窗
+        g2d.setColor(Color.YELLOW);
+        g2d.fillOval(x + 15, y + 15, 10, 10);
+
+        // 坦克顶部装饰
+        g2d.setColor(Color.WHITE);
+        g2d.fillOval(x + 18, y + 18, 4, 4);
+
+        // 坦克履带纹路
+        g2d.setColor(Color.DARK_GRAY);
+        for (int i = 0; i < 4; i++) {
+            g2d.fillRect(x - 5, y + i * 10, 5, 2);
+            g2d.fillRect(x + 40, y + i * 10, 5, 2);
+        }
+    }
+
+    private static void paintCannon(Graphics2D g2d, int x, int y, Direction direction) {
+        switch (direction) {
+            case UP:
+                g2d.fillRect(x + 18, y - 10, 4, 25);
+                break;
+            case UP_RIGHT:
+                g2d.fillPolygon(new int[]{x + 20, x + 30, x + 25},
+                        new int[]{y, y + 10, y + 15}, 3);
+                break;
+            case RIGHT:
+                g2d.fillRect(x + 25, y + 18, 25, 4);
+                break;
+            case DOWN_RIGHT:
+                g2d.fillPolygon(new int[]{x + 20, x + 30, x + 25},
+                        new int[]{y + 40, y + 30, y + 25}, 3);
+                break;
+            case DOWN:
+                g2d.fillRect(x + 18, y + 25, 4, 25);
+                break;
+            case DOWN_LEFT:
+                g2d.fillPolygon(new int[]{x + 20, x + 10, x + 15},
+                        new int[]{y + 40, y + 30, y + 25}, 3);
+                break;
+            case LEFT:
+                g2d.fillRect(x - 10, y + 18, 25, 4);
+                break;
+            case UP_LEFT:
+                g2d.fillPolygon(new int[]{x + 20, x + 10, x + 15},
+                        new int[]{y, y + 10, y + 15}, 3);
+                break;
+        }
+    }
+}
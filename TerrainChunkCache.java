@@ -0,0 +1,161 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+// 地形区块图像缓存 - 大世界的地形不能画成一整张图(每像素4字节, 12800x9600 就是近500MB),
+// 改为每个区块(TileMap.CHUNK 见方)一张透明图像, 第一次出现在屏幕上时才画
+// 按最近使用的帧号淘汰: 总字节数超过预算时丢掉最久没画过的区块, 本帧要画的不丢
+// 被打掉的砖块: 已缓存的区块直接擦掉那一格, 没缓存的区块下次载入时按当前地形画, 自然是新的
+class TerrainChunkCache {
+    private final long budgetBytes;
+
+    private final Image[] images = new Image[TileMap.CHUNK_COLS * TileMap.CHUNK_ROWS];
+    private final long[] lastUsed = new long[images.length];
+    private long frame;
+    private long bytes;
+    private int cached;
+    private long loads;
+
+    private GraphicsConfiguration config;
+    private TileMap drawnTerrain;
+    private int drawnChanges;
+
+    public TerrainChunkCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    // 把 camera 看得到的区块画到 g 上, g 已经平移到世界坐标
+    public void draw(Graphics g, TileMap terrain, Camera camera) {
+        frame++;
+
+        // 新的一局(地形对象换了)或显示配置变化时全部作废; 画到离屏图像(界面层缓存)时沿用已有的
+        GraphicsConfiguration gc = ((Graphics2D) g).getDeviceConfiguration();
+        boolean configChanged = gc != config && gc.getDevice().getType() != GraphicsDevice.TYPE_IMAGE_BUFFER;
+        if (configChanged) {
+            clear();
+            config = gc;
+        }
+        if (terrain != drawnTerrain) {
+            clear();
+            drawnTerrain = terrain;
+            drawnChanges = terrain.getChangeCount();
+        } else {
+            eraseChanges(terrain);
+        }
+
+        int cx0 = camera.getX() / TileMap.CHUNK;
+        int cy0 = camera.getY() / TileMap.CHUNK;
+        int cx1 = Math.min(TileMap.CHUNK_COLS - 1, (camera.getX() + World.VIEW_WIDTH - 1) / TileMap.CHUNK);
+        int cy1 = Math.min(TileMap.CHUNK_ROWS - 1, (camera.getY() + World.VIEW_HEIGHT - 1) / TileMap.CHUNK);
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int chunk = cy * TileMap.CHUNK_COLS + cx;
+                if (images[chunk] == null) {
+                    load(chunk, terrain);
+                }
+                lastUsed[chunk] = frame;
+                g.drawImage(images[chunk], cx * TileMap.CHUNK, cy * TileMap.CHUNK, null);
+            }
+        }
+        evict();
+    }
+
+    // 把区块画成图像
+    private void load(int chunk, TileMap terrain) {
+        int col0 = chunk % TileMap.CHUNK_COLS * TileMap.CHUNK_TILES;
+        int row0 = chunk / TileMap.CHUNK_COLS * TileMap.CHUNK_TILES;
+        int cols = Math.min(TileMap.CHUNK_TILES, TileMap.COLS - col0);
+        int rows = Math.min(TileMap.CHUNK_TILES, TileMap.ROWS - row0);
+        int width = cols * TileMap.TILE;
+        int height = rows * TileMap.TILE;
+        Image image = config != null
+                ? config.createCompatibleImage(width, height, Transparency.BITMASK)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+        Graphics2D tg = (Graphics2D) image.getGraphics();
+        try {
+            tg.setComposite(AlphaComposite.Clear);
+            tg.fillRect(0, 0, width, height);
+            tg.setComposite(AlphaComposite.SrcOver);
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    WorldRenderer.paintTile(tg, terrain.get(col0 + col, row0 + row), col * TileMap.TILE,
+                            row * TileMap.TILE);
+                }
+            }
+        } finally {
+            tg.dispose();
+        }
+        images[chunk] = image;
+        bytes += 4L * width * height;
+        cached++;
+        loads++;
+    }
+
+    // 新打掉的砖块: 所在区块已缓存时擦掉那一格
+    private void eraseChanges(TileMap terrain) {
+        for (; drawnChanges < terrain.getChangeCount(); drawnChanges++) {
+            int index = terrain.getChange(drawnChanges);
+            int col = index % TileMap.COLS;
+            int row = index / TileMap.COLS;
+            Image image = images[row / TileMap.CHUNK_TILES * TileMap.CHUNK_COLS + col / TileMap.CHUNK_TILES];
+            if (image == null) {
+                continue;
+            }
+            Graphics2D tg = (Graphics2D) image.getGraphics();
+            try {
+                tg.setComposite(AlphaComposite.Clear);
+                tg.fillRect(col % TileMap.CHUNK_TILES * TileMap.TILE, row % TileMap.CHUNK_TILES * TileMap.TILE,
+                        TileMap.TILE, TileMap.TILE);
+            } finally {
+                tg.dispose();
+            }
+        }
+    }
+
+    // 超出预算时从最久没画过的区块开始丢, 本帧画过的留着
+    private void evict() {
+        while (bytes > budgetBytes) {
+            int oldest = -1;
+            for (int i = 0; i < images.length; i++) {
+                if (images[i] != null && lastUsed[i] < frame && (oldest < 0 || lastUsed[i] < lastUsed[oldest])) {
+                    oldest = i;
+                }
+            }
+            if (oldest < 0) {
+                return;
+            }
+            release(oldest);
+        }
+    }
+
+    private void release(int chunk) {
+        Image image = images[chunk];
+        bytes -= 4L * image.getWidth(null) * image.getHeight(null);
+        image.flush();
+        images[chunk] = null;
+        cached--;
+    }
+
+    private void clear() {
+        for (int i = 0; i < images.length; i++) {
+            if (images[i] != null) {
+                release(i);
+            }
+        }
+        Arrays.fill(lastUsed, 0);
+    }
+
+    public int getCachedChunks() {
+        return cached;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    // 累计画过的区块数, 一直增长说明预算太小, 区块在反复载入
+    public long getLoads() {
+        return loads;
+    }
+}
@@ -0,0 +1,10 @@
+// 一个tick中的各个阶段, 用于耗时统计
+enum TickPhase {
+    UPDATE,
+    CHECK_COLLISIONS,
+    SPAWN_ENEMY;
+
+    // 按 ordinal 排列的全部阶段, 每tick遍历时用它(values() 每次都会复制数组); 只读, 不要修改元素
+    static final TickPhase[] ALL = values();
+    public static final int COUNT = ALL.length;
+}
@@ -0,0 +1,79 @@
+import java.lang.management.ManagementFactory;
+
+// tick采样 - 每个tick的总耗时、各阶段耗时和分配的字节数, 由模拟线程在 world.step() 前后记录
+// 性能叠加层打开时随渲染帧一起复制给绘制线程, 绘制线程只读(和排序)自己的副本
+class TickSamples {
+    // 当前线程分配字节数, 不支持时为null
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    private final SampleRing tickTimes;
+    private final SampleRing allocatedBytes;
+    private final SampleRing[] phaseTimes = new SampleRing[TickPhase.COUNT];
+
+    private long tickStart;
+    private long tickAllocated;
+
+    public TickSamples(int history) {
+        tickTimes = new SampleRing(history);
+        allocatedBytes = new SampleRing(history);
+        for (int i = 0; i < phaseTimes.length; i++) {
+            phaseTimes[i] = new SampleRing(history);
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+    // 在 world.step() 前后调用, 必须在同一线程
+    public void beginTick() {
+        tickStart = System.nanoTime();
+        if (THREADS != null) {
+            tickAllocated = THREADS.getCurrentThreadAllocatedBytes();
+        }
+    }
+
+    public void endTick(World world) {
+        tickTimes.add(System.nanoTime() - tickStart);
+        if (THREADS != null) {
+            allocatedBytes.add(THREADS.getCurrentThreadAllocatedBytes() - tickAllocated);
+        }
+        for (int p = 0; p < TickPhase.COUNT; p++) {
+            phaseTimes[p].add(world.getPhaseNanos(TickPhase.ALL[p]));
+        }
+    }
+
+    // 复制 src 的全部样本, 两边的样本数相同
+    public void copyFrom(TickSamples src) {
+        tickTimes.copyFrom(src.tickTimes);
+        allocatedBytes.copyFrom(src.allocatedBytes);
+        for (int i = 0; i < phaseTimes.length; i++) {
+            phaseTimes[i].copyFrom(src.phaseTimes[i]);
+        }
+    }
+
+    public static boolean isAllocationSupported() {
+        return THREADS != null;
+    }
+
+    public SampleRing getTickTimes() {
+        return tickTimes;
+    }
+
+    public SampleRing getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public SampleRing getPhaseTimes(TickPhase phase) {
+        return phaseTimes[phase.ordinal()];
+    }
+}
@@ -0,0 +1,330 @@
+import java.io.BufferedReader;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+// 地形 - 20x20像素的砖墙/钢墙格子, 每种墙一个按位打包的 long[] 位图(下标 = 行 * COLS + 列)
+// 坦克(40x40)最多压住3x3格, 子弹最多2x2格, 所以每个实体的地形检测都是O(1)
+// 砖墙被子弹打掉后记入变化日志, 绘制时只重画变化的格子
+// 大世界: 关卡文件(一屏大)放在世界中间, 其余部分按区块生成; 整张图每格只占2位, 12800x9600 的世界也不到100KB,
+// 所以模拟用的地形始终全部常驻, 按区块懒加载和淘汰的是绘制用的区块图像(见 TerrainChunkCache)
+class TileMap {
+    static final int TILE = 20;
+    static final int COLS = World.WIDTH / TILE;
+    static final int ROWS = World.HEIGHT / TILE;
+
+    // 关卡文件的大小(一屏)和它在世界中的位置(格)
+    static final int LEVEL_COLS = World.VIEW_WIDTH / TILE;
+    static final int LEVEL_ROWS = World.VIEW_HEIGHT / TILE;
+    static final int LEVEL_COL = (COLS - LEVEL_COLS) / 2;
+    static final int LEVEL_ROW = (ROWS - LEVEL_ROWS) / 2;
+
+    // 区块: 地形生成、模拟远近和绘制缓存的单位, 边长32格(640像素); 世界边缘的区块可能不完整
+    static final int CHUNK_TILES = 32;
+    static final int CHUNK = CHUNK_TILES * TILE;
+    static final int CHUNK_COLS = (COLS + CHUNK_TILES - 1) / CHUNK_TILES;
+    static final int CHUNK_ROWS = (ROWS + CHUNK_TILES - 1) / CHUNK_TILES;
+
+    static final int EMPTY = 0;
+    static final int BRICK = 1;
+    static final int STEEL = 2;
+
+    private static final int WORDS = (COLS * ROWS + 63) >>> 6;
+
+    private final long[] brick = new long[WORDS];
+    private final long[] steel = new long[WORDS];
+    private int solidCount;
+
+    // 被打掉的格子, 按发生顺序; 大世界里只有少数砖块会被打掉, 所以按需扩容
+    private int[] changes = new int[64];
+    private int changeCount;
+
+    public static TileMap empty() {
+        return new TileMap();
+    }
+
+    public TileMap copy() {
+        TileMap copy = new TileMap();
+        System.arraycopy(brick, 0, copy.brick, 0, WORDS);
+        System.arraycopy(steel, 0, copy.steel, 0, WORDS);
+        copy.solidCount = solidCount;
+        return copy;
+    }
+
+    // 恢复成 level 的地形并清空变化日志, 联机客户端每局开始时用
+    public void resetTo(TileMap level) {
+        System.arraycopy(level.brick, 0, brick, 0, WORDS);
+        System.arraycopy(level.steel, 0, steel, 0, WORDS);
+        solidCount = level.solidCount;
+        changeCount = 0;
+    }
+
+    public int get(int col, int row) {
+        int index = row * COLS + col;
+        if (bit(brick, index)) {
+            return BRICK;
+        }
+        return bit(steel, index) ? STEEL : EMPTY;
+    }
+
+    public void set(int col, int row, int tile) {
+        int index = row * COLS + col;
+        if (get(col, row) != EMPTY) {
+            solidCount--;
+        }
+        clear(brick, index);
+        clear(steel, index);
+        if (tile == BRICK) {
+            brick[index >>> 6] |= 1L << index;
+        } else if (tile == STEEL) {
+            steel[index >>> 6] |= 1L << index;
+        }
+        if (tile != EMPTY) {
+            solidCount++;
+        }
+    }
+
+    public boolean isEmpty() {
+        return solidCount == 0;
+    }
+
+    // 矩形是否压到任何墙(与 Rectangle.intersects 相同, 边缘相接不算)
+    public boolean blocks(int x, int y, int width, int height) {
+        return firstSolid(x, y, width, height) >= 0;
+    }
+
+    // 矩形压到的第一块墙的格子下标, 没有返回-1; 场地外不算墙(边界由移动时的限制处理)
+    public int firstSolid(int x, int y, int width, int height) {
+        if (solidCount == 0 || width <= 0 || height <= 0) {
+            return -1;
+        }
+        int col0 = Math.max(0, Math.floorDiv(x, TILE));
+        int col1 = Math.min(COLS - 1, Math.floorDiv(x + width - 1, TILE));
+        int row0 = Math.max(0, Math.floorDiv(y, TILE));
+        int row1 = Math.min(ROWS - 1, Math.floorDiv(y + height - 1, TILE));
+        for (int row = row0; row <= row1; row++) {
+            for (int col = col0; col <= col1; col++) {
+                int index = row * COLS + col;
+                if (bit(brick, index) || bit(steel, index)) {
+                    return index;
+                }
+            }
+        }
+        return -1;
+    }
+
+    public boolean isBrick(int index) {
+        return bit(brick, index);
+    }
+
+    // 打掉一块砖墙(钢墙打不掉), 返回是否打掉
+    public boolean destroy(int index) {
+        if (!bit(brick, index)) {
+            return false;
+        }
+        clear(brick, index);
+        solidCount--;
+        if (changeCount == changes.length) {
+            changes = Arrays.copyOf(changes, changeCount * 2);
+        }
+        changes[changeCount++] = index;
+        return true;
+    }
+
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    // 第i次变化的格子下标
+    public int getChange(int i) {
+        return changes[i];
+    }
+
+    public long checksum(long h) {
+        for (int i = 0; i < WORDS; i++) {
+            h = h * 31 + brick[i];
+            h = h * 31 + steel[i];
+        }
+        return h;
+    }
+
+    private static boolean bit(long[] bits, int index) {
+        return (bits[index >>> 6] & 1L << index) != 0;
+    }
+
+    private static void clear(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+
+    // 录像中保存的地形: 两个位图按原样写出
+    public void write(DataOutput out) throws IOException {
+        VarInt.write(out, COLS);
+        VarInt.write(out, ROWS);
+        for (int i = 0; i < WORDS; i++) {
+            out.writeLong(brick[i]);
+            out.writeLong(steel[i]);
+        }
+    }
+
+    // 存档中的地形: 与录像相同的格式
+    public void write(ByteBuffer out) {
+        VarInt.put(out, COLS);
+        VarInt.put(out, ROWS);
+        for (int i = 0; i < WORDS; i++) {
+            out.putLong(brick[i]);
+            out.putLong(steel[i]);
+        }
+    }
+
+    // 写出的字节数上限
+    public static int writtenSize() {
+        return 2 * 5 + WORDS * 16;
+    }
+
+    public static TileMap read(ByteBuffer in) throws IOException {
+        long cols = VarInt.get(in);
+        long rows = VarInt.get(in);
+        if (cols != COLS || rows != ROWS) {
+            throw new IOException("地形尺寸不符: " + cols + "x" + rows);
+        }
+        TileMap map = new TileMap();
+        for (int i = 0; i < WORDS; i++) {
+            map.brick[i] = in.getLong();
+            map.steel[i] = in.getLong();
+            map.solidCount += Long.bitCount(map.brick[i]) + Long.bitCount(map.steel[i]);
+        }
+        return map;
+    }
+
+    public static TileMap read(DataInput in) throws IOException {
+        long cols = VarInt.read(in);
+        long rows = VarInt.read(in);
+        if (cols != COLS || rows != ROWS) {
+            throw new IOException("地形尺寸不符: " + cols + "x" + rows);
+        }
+        TileMap map = new TileMap();
+        for (int i = 0; i < WORDS; i++) {
+            map.brick[i] = in.readLong();
+            map.steel[i] = in.readLong();
+        }
+        for (int i = 0; i < WORDS; i++) {
+            map.solidCount += Long.bitCount(map.brick[i]) + Long.bitCount(map.steel[i]);
+        }
+        return map;
+    }
+
+    // 关卡文件: 每行一排格子, '.' 空地, 'B' 砖墙, 'S' 钢墙; '#' 开头的行是注释
+    // 不足的行和列按空地处理; 世界比一屏大时关卡放在世界中间
+    public static TileMap parse(Reader reader) throws IOException {
+        TileMap map = new TileMap();
+        BufferedReader lines = new BufferedReader(reader);
+        int row = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.startsWith("#")) {
+                continue;
+            }
+            if (row >= LEVEL_ROWS) {
+                throw new IOException("关卡超过 " + LEVEL_ROWS + " 行");
+            }
+            line = line.stripTrailing();
+            if (line.length() > LEVEL_COLS) {
+                throw new IOException("第 " + (row + 1) + " 行超过 " + LEVEL_COLS + " 列");
+            }
+            for (int col = 0; col < line.length(); col++) {
+                switch (line.charAt(col)) {
+                    case '.':
+                        break;
+                    case 'B':
+                        map.set(LEVEL_COL + col, LEVEL_ROW + row, BRICK);
+                        break;
+                    case 'S':
+                        map.set(LEVEL_COL + col, LEVEL_ROW + row, STEEL);
+                        break;
+                    default:
+                        throw new IOException("第 " + (row + 1) + " 行第 " + (col + 1) + " 列: 未知的格子 '"
+                                + line.charAt(col) + "'");
+                }
+            }
+            row++;
+        }
+        return map;
+    }
+
+    // 按名字加载关卡: 先当作文件路径, 否则从类路径的 levels/<名字>.txt 读取; "none" 为空场地
+    // 世界比一屏大时, 关卡以外的部分按 GameConfig.WORLD_SEED 生成
+    public static TileMap load(String name) throws IOException {
+        if (name.equals("none")) {
+            return empty();
+        }
+        TileMap map = parseLevel(name);
+        map.generateAround(GameConfig.WORLD_SEED);
+        return map;
+    }
+
+    private static TileMap parseLevel(String name) throws IOException {
+        Path file = Paths.get(name);
+        if (Files.isRegularFile(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                return parse(reader);
+            }
+        }
+        InputStream resource = TileMap.class.getResourceAsStream("/levels/" + name + ".txt");
+        if (resource == null) {
+            throw new IOException("找不到关卡 " + name);
+        }
+        try (Reader reader = new InputStreamReader(resource, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    // 在关卡周围生成地形: 每个区块用自己的随机序列(由种子和区块坐标决定)放几段砖墙、钢块和砖房,
+    // 与生成顺序无关; 关卡区域和它周围一格不动, 玩家出生的地方总是关卡原样
+    void generateAround(long seed) {
+        for (int cy = 0; cy < CHUNK_ROWS; cy++) {
+            for (int cx = 0; cx < CHUNK_COLS; cx++) {
+                GameRandom random = new GameRandom(seed * 0x9E3779B97F4A7C15L + (long) cy * CHUNK_COLS + cx);
+                int col0 = cx * CHUNK_TILES;
+                int row0 = cy * CHUNK_TILES;
+                int pieces = 3 + random.nextInt(4);
+                for (int p = 0; p < pieces; p++) {
+                    int kind = random.nextInt(10);
+                    int col = col0 + random.nextInt(CHUNK_TILES);
+                    int row = row0 + random.nextInt(CHUNK_TILES);
+                    if (kind < 6) {
+                        // 两格厚的砖墙, 横竖各半
+                        int length = 4 + random.nextInt(9);
+                        boolean horizontal = random.nextBoolean();
+                        fillGenerated(col, row, horizontal ? length : 2, horizontal ? 2 : length, BRICK);
+                    } else if (kind < 8) {
+                        fillGenerated(col, row, 2, 2, STEEL);
+                    } else {
+                        fillGenerated(col, row, 4, 4, BRICK);
+                    }
+                }
+            }
+        }
+    }
+
+    // 填充生成的矩形, 跳过世界外和关卡区域(含一格边距)
+    private void fillGenerated(int col0, int row0, int cols, int rows, int tile) {
+        for (int row = row0; row < row0 + rows && row < ROWS; row++) {
+            for (int col = col0; col < col0 + cols && col < COLS; col++) {
+                boolean inLevel = col >= LEVEL_COL - 1 && col <= LEVEL_COL + LEVEL_COLS
+                        && row >= LEVEL_ROW - 1 && row <= LEVEL_ROW + LEVEL_ROWS;
+                if (!inLevel) {
+                    set(col, row, tile);
+                }
+            }
+        }
+    }
+}
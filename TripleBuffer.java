@@ -0,0 +1,40 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 三缓冲 - 一个写线程和一个读线程交换三个缓冲区: 写线程独占后缓冲区, 读线程独占前缓冲区, 中间的一个是最新发布的
+// 发布和读取都只是一次原子交换, 两边从不互相等待; 写得比读快时没读过的中间缓冲区被新的一帧换掉(丢弃), 读线程总是拿到最新的一帧
+// middle 的低两位是中间缓冲区的下标, FRESH 位表示它是发布后还没被读过的新帧
+class TripleBuffer<T> {
+    private static final int INDEX = 3;
+    private static final int FRESH = 4;
+
+    private final Object[] buffers;
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back;      // 只由写线程访问
+    private int front = 2; // 只由读线程访问
+
+    public TripleBuffer(T first, T second, T third) {
+        buffers = new Object[] {first, second, third};
+    }
+
+    // 写线程: 当前可以写的缓冲区, 发布之前读线程不会访问它
+    @SuppressWarnings("unchecked")
+    public T writeBuffer() {
+        return (T) buffers[back];
+    }
+
+    // 写线程: 发布写好的缓冲区, 换回中间的一个接着写; 返回true表示换下来的上一帧还没被读过, 被丢弃了
+    public boolean publish() {
+        int old = middle.getAndSet(back | FRESH);
+        back = old & INDEX;
+        return (old & FRESH) != 0;
+    }
+
+    // 读线程: 有新发布的帧时换到手里, 返回最新的一帧; 在下一次 read() 之前写线程不会改它
+    @SuppressWarnings("unchecked")
+    public T read() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX;
+        }
+        return (T) buffers[front];
+    }
+}
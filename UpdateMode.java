@@ -0,0 +1,17 @@
+// 敌人更新方式
+enum UpdateMode {
+    SEQUENTIAL, // 在模拟线程上逐个更新
+    PARALLEL;   // 分块交给 fork-join 线程池并行更新, 结果与单线程相同
+
+    // 不认识的值直接报错, 拼错 parallel 时不会悄悄按单线程跑完性能检查
+    public static UpdateMode parse(String value) {
+        switch (value.toLowerCase()) {
+            case "sequential":
+                return SEQUENTIAL;
+            case "parallel":
+                return PARALLEL;
+            default:
+                throw new IllegalArgumentException("未知的敌人更新方式: " + value + " (可选 sequential / parallel)");
+        }
+    }
+}
@@ -0,0 +1,988 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 游戏世界 - 模拟核心, 不依赖 AWT/Swing
+// 持有全部游戏状态, 每次 step() 推进一个tick; 界面只负责把按键转换成输入位并绘制状态
+class World {
+    // 一屏的大小, 也是关卡文件的大小
+    public static final int VIEW_WIDTH = 800;
+    public static final int VIEW_HEIGHT = 600;
+
+    // 整个世界的大小, 按地形格取整; 默认就是一屏
+    public static final int WIDTH = GameConfig.WORLD_WIDTH / TileMap.TILE * TileMap.TILE;
+    public static final int HEIGHT = GameConfig.WORLD_HEIGHT / TileMap.TILE * TileMap.TILE;
+
+    // 输入位
+    public static final int INPUT_UP = 1;
+    public static final int INPUT_RIGHT = 1 << 1;
+    public static final int INPUT_DOWN = 1 << 2;
+    public static final int INPUT_LEFT = 1 << 3;
+    public static final int INPUT_FIRE = 1 << 4; // 本tick发射一颗子弹
+
+    // 敌人出生点落在墙上时重新选位置的次数
+    private static final int SPAWN_ATTEMPTS = 10;
+
+    // 联机时其他玩家在1号玩家两侧排开的间距
+    private static final int PLAYER_SPACING = 60;
+
+    // 特效事件缓冲区的容量, 两帧之间的事件超过这么多时最旧的不再生成粒子
+    static final int EFFECT_CAPACITY = 4096;
+
+    // 1号玩家, 单机时是唯一的玩家; 联机时服务器加入更多玩家, 所有玩家共用分数和生命
+    private PlayerTank player;
+    private final List<PlayerTank> players = new ArrayList<>();
+    private int playerCount = 1;
+    // 敌人、子弹、爆炸各自放在一个结构数组池里, 不为每个实体建对象
+    private EnemyPool enemies;
+    private BulletPool bullets;
+    private ExplosionPool explosions;
+
+    // 只影响画面的事件, 绘制端据此生成粒子
+    private EffectLog effects;
+
+    // 唯一的随机数来源: 每局游戏的种子由 seeds 产生, 本局所有随机(包括每个敌人的)都由 random 派生
+    private final GameRandom seeds;
+    private GameRandom random;
+    private long gameSeed;
+    private int score;
+    private int lives;
+    private GameState gameState;
+    private Difficulty difficulty = Difficulty.MEDIUM;
+
+    private long tickCount;
+    private long lastEnemySpawnTick;
+    private int nextEnemyId;
+
+    // 规模上限, 默认是普通游戏的5个敌人; 蜂群模式下可以到上万
+    private int maxEnemies = GameConfig.MAX_ENEMIES;
+    private int maxEnemyBullets = GameConfig.MAX_ENEMY_BULLETS; // 0 表示按难度
+    private int spawnBatch = GameConfig.SPAWN_BATCH;            // 每次刷新生成的敌人数
+    private int startingLives = 3;
+
+    // 调平衡时覆盖难度的参数(含义同 Difficulty), 0 表示按难度
+    private int enemySpawnRate;
+    private int enemyFireRate;
+
+    // 碰撞检测
+    private CollisionMode collisionMode = GameConfig.COLLISION_MODE;
+    private final SpatialHash enemyGrid = new SpatialHash(WIDTH, HEIGHT, 50);
+    private int[] nearbyEnemies = new int[16];
+
+    // 碰撞批量查询的结果缓冲区, 见 collectBulletHits()
+    static final int NO_HIT = -1;
+    static final int HIT_PLAYER = -2;
+    private int[] hitPairs = new int[32];
+    private int[] bulletTargets = new int[256];
+    private boolean[] enemyRemoved = new boolean[16];
+
+    // 关卡的初始地形和本局被打过的地形
+    private TileMap level = TileMap.empty();
+    private TileMap terrain;
+
+    // 敌人共用的寻路流场, 目标是玩家
+    private FlowField flowField;
+
+    // 大世界里离玩家远的区块简化模拟或冻结
+    private final ActiveRegion region = new ActiveRegion();
+
+    // 最近一个tick各阶段的耗时(纳秒)
+    private final long[] phaseNanos = new long[TickPhase.COUNT];
+
+    // 敌人AI决策的预算和轮转位置
+    private final AiScheduler aiScheduler = new AiScheduler(GameConfig.AI_BUDGET);
+
+    // 敌人更新(单线程或并行)
+    private EnemyUpdater enemyUpdater = new EnemyUpdater(GameConfig.UPDATE_MODE, aiScheduler);
+
+    // seed 决定整个世界的随机序列, 相同的种子和输入得到相同的结果
+    public World(long seed) {
+        seeds = new GameRandom(seed);
+        gameState = GameState.MENU;
+        score = 0;
+        lives = startingLives;
+    }
+
+    public void setCollisionMode(CollisionMode collisionMode) {
+        this.collisionMode = collisionMode;
+    }
+
+    public void setUpdateMode(UpdateMode updateMode) {
+        enemyUpdater = new EnemyUpdater(updateMode, aiScheduler);
+    }
+
+    public void start() {
+        start(seeds.nextLong());
+    }
+
+    // 用指定种子开始一局, 回放时用录像中的种子重现同一局
+    public void start(long gameSeed) {
+        this.gameSeed = gameSeed;
+        random = new GameRandom(gameSeed);
+
+        enemies = new EnemyPool(64);
+        bullets = new BulletPool(256);
+        explosions = new ExplosionPool(16);
+        effects = new EffectLog(EFFECT_CAPACITY);
+        aiScheduler.reset();
+
+        terrain = level.copy();
+        players.clear();
+        for (int k = 0; k < playerCount; k++) {
+            players.add(newPlayer(k));
+        }
+        player = players.get(0);
+        region.update(players);
+        flowField = new FlowField();
+        flowField.setBounds(region.getLeft(), region.getTop(), region.getRight(), region.getBottom());
+        flowField.update(players, terrain);
+
+        tickCount = 0;
+        lastEnemySpawnTick = 0;
+        nextEnemyId = 0;
+        score = 0;
+        lives = startingLives;
+        setState(GameState.PLAYING);
+    }
+
+    public void pause() {
+        if (gameState == GameState.PLAYING) {
+            setState(GameState.PAUSED);
+        }
+    }
+
+    public void resume() {
+        if (gameState == GameState.PAUSED) {
+            setState(GameState.PLAYING);
+        }
+    }
+
+    public void returnToMenu() {
+        setState(GameState.MENU);
+    }
+
+    // 所有状态切换都经过这里, 以便记录JFR事件
+    private void setState(GameState state) {
+        GameEvents.GameStateChange event = new GameEvents.GameStateChange();
+        if (event.shouldCommit()) {
+            event.from = gameState.name();
+            event.to = state.name();
+            event.tick = tickCount;
+            event.score = score;
+            event.lives = lives;
+            event.commit();
+        }
+        gameState = state;
+    }
+
+    // 以下规模设置都在下一次 start() 之前调用; 录像中会记录除初始生命数以外的各项
+    public void setMaxEnemies(int maxEnemies) {
+        this.maxEnemies = maxEnemies;
+    }
+
+    // 0 表示按难度限制敌人子弹数
+    public void setMaxEnemyBullets(int maxEnemyBullets) {
+        this.maxEnemyBullets = maxEnemyBullets;
+    }
+
+    public void setSpawnBatch(int spawnBatch) {
+        this.spawnBatch = Math.max(1, spawnBatch);
+    }
+
+    // 0 表示按难度的敌人生成间隔(毫秒)
+    public void setEnemySpawnRate(int enemySpawnRate) {
+        this.enemySpawnRate = Math.max(0, enemySpawnRate);
+    }
+
+    // 0 表示按难度的敌人开火频率
+    public void setEnemyFireRate(int enemyFireRate) {
+        this.enemyFireRate = Math.max(0, enemyFireRate);
+    }
+
+    public void setAiBudget(int aiBudget) {
+        aiScheduler.setBudget(aiBudget);
+    }
+
+    public void setStartingLives(int startingLives) {
+        this.startingLives = startingLives;
+    }
+
+    public int getMaxEnemies() {
+        return maxEnemies;
+    }
+
+    public int getMaxEnemyBullets() {
+        return maxEnemyBullets;
+    }
+
+    public int getSpawnBatch() {
+        return spawnBatch;
+    }
+
+    public int getEnemySpawnRate() {
+        return enemySpawnRate;
+    }
+
+    public int getEnemyFireRate() {
+        return enemyFireRate;
+    }
+
+    public int getAiBudget() {
+        return aiScheduler.getBudget();
+    }
+
+    // 敌人AI决策的统计: 最近一个tick执行和推迟的决策数, 以及累计值
+    public AiScheduler getAiScheduler() {
+        return aiScheduler;
+    }
+
+    // 联机时加入一个玩家, 返回它的序号; 之后每局开始时都有这个玩家
+    public int addPlayer() {
+        playerCount++;
+        if (player != null) {
+            players.add(newPlayer(players.size()));
+        }
+        return playerCount - 1;
+    }
+
+    // 第k个玩家的出生点: 1号玩家在关卡底部中间, 其他玩家在两侧交替排开, 避开墙
+    private PlayerTank newPlayer(int k) {
+        int levelX = TileMap.LEVEL_COL * TileMap.TILE;
+        int y = TileMap.LEVEL_ROW * TileMap.TILE + 500;
+        if (k > 0) {
+            int free = 0;
+            for (int i = 1; i <= 2 * (VIEW_WIDTH / PLAYER_SPACING); i++) {
+                int x = levelX + 375 + PLAYER_SPACING * ((i + 1) / 2) * (i % 2 == 1 ? -1 : 1);
+                if (x < levelX || x > levelX + VIEW_WIDTH - 40 || terrain.blocks(x, y, 40, 40)) {
+                    continue;
+                }
+                if (++free == k) {
+                    return new PlayerTank(x, y);
+                }
+            }
+        }
+        return new PlayerTank(levelX + 375, y);
+    }
+
+    // 关卡在下一次 start() 时生效, 每局从关卡的初始地形开始
+    public void setLevel(TileMap level) {
+        this.level = level;
+    }
+
+    public void setDifficulty(Difficulty difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    public void cycleDifficulty() {
+        switch (difficulty) {
+            case EASY:
+                difficulty = Difficulty.MEDIUM;
+                break;
+            case MEDIUM:
+                difficulty = Difficulty.HARD;
+                break;
+            case HARD:
+                difficulty = Difficulty.EASY;
+                break;
+        }
+    }
+
+    // 推进一个固定步长, inputs 为本tick的输入位(INPUT_*的组合); 联机时其他玩家没有输入
+    public void step(int inputs) {
+        if (gameState != GameState.PLAYING) {
+            return;
+        }
+
+        applyInputs(player, inputs);
+        for (int k = 1; k < players.size(); k++) {
+            applyInputs(players.get(k), 0);
+        }
+        advance();
+    }
+
+    // 联机时推进一个固定步长, inputs[k] 为第k个玩家的输入位, 数组不够长时其余玩家没有输入
+    public void step(int[] inputs) {
+        if (gameState != GameState.PLAYING) {
+            return;
+        }
+
+        for (int k = 0; k < players.size(); k++) {
+            applyInputs(players.get(k), k < inputs.length ? inputs[k] : 0);
+        }
+        advance();
+    }
+
+    private void applyInputs(PlayerTank tank, int inputs) {
+        tank.setInput(inputs);
+        if ((inputs & INPUT_FIRE) != 0) {
+            tank.fire(bullets);
+            addMuzzleEffect();
+        }
+    }
+
+    private void advance() {
+        GameEvents.Tick event = new GameEvents.Tick();
+        event.begin();
+
+        long start = System.nanoTime();
+        update();
+        long updated = System.nanoTime();
+        checkCollisions();
+        long collided = System.nanoTime();
+        spawnEnemy();
+        long spawned = System.nanoTime();
+        tickCount++;
+
+        phaseNanos[TickPhase.UPDATE.ordinal()] = updated - start;
+        phaseNanos[TickPhase.CHECK_COLLISIONS.ordinal()] = collided - updated;
+        phaseNanos[TickPhase.SPAWN_ENEMY.ordinal()] = spawned - collided;
+
+        if (event.shouldCommit()) {
+            event.tick = tickCount;
+            event.enemies = enemies.size();
+            event.bullets = bullets.size();
+            event.explosions = explosions.size();
+            event.updateNanos = phaseNanos[TickPhase.UPDATE.ordinal()];
+            event.checkCollisionsNanos = phaseNanos[TickPhase.CHECK_COLLISIONS.ordinal()];
+            event.spawnEnemyNanos = phaseNanos[TickPhase.SPAWN_ENEMY.ordinal()];
+            event.aiDecisions = aiScheduler.getDecisions();
+            event.aiDeferred = aiScheduler.getDeferred();
+            event.commit();
+        }
+    }
+
+    void update() {
+        // 100Hz 下每tick的移动量按实际频率换算成本tick的整数步
+        int playerStep = GameConfig.perTick(Tank.SPEED, tickCount);
+        for (int k = 0; k < players.size(); k++) {
+            PlayerTank tank = players.get(k);
+            tank.setSpeed(playerStep);
+            tank.update();
+            tank.resolveTerrain(terrain);
+        }
+        region.update(players);
+        flowField.setBounds(region.getLeft(), region.getTop(), region.getRight(), region.getBottom());
+        flowField.update(players, terrain);
+
+        // 更新敌人坦克(可并行), 再按敌人顺序处理开火和离场; 开火概率为100Hz下每tick的百分比, 由 rollFire 按频率换算
+        int fireRate = enemyFireRate > 0 ? enemyFireRate : difficulty.getFireRate();
+        enemyUpdater.update(enemies, flowField, terrain, fireRate / 10, region, tickCount);
+
+        for (int c = 0; c < enemyUpdater.getChunkCount(); c++) {
+            int[] fires = enemyUpdater.getFireRequests(c);
+            for (int k = 0; k < enemyUpdater.getFireCount(c); k++) {
+                // 敌人发射子弹（限制子弹数量）
+                if (bullets.count(BulletPool.ENEMY) < enemyBulletLimit()) {
+                    enemies.fire(fires[k], bullets);
+                    addMuzzleEffect();
+                }
+            }
+        }
+
+        boolean[] enemyRemoved = resetEnemyRemoved();
+        for (int c = 0; c < enemyUpdater.getChunkCount(); c++) {
+            int[] gone = enemyUpdater.getDespawns(c);
+            for (int k = 0; k < enemyUpdater.getDespawnCount(c); k++) {
+                // 敌人离开屏幕
+                enemyRemoved[gone[k]] = true;
+                lives--;
+                if (lives <= 0) {
+                    setState(GameState.GAME_OVER);
+                }
+            }
+        }
+        enemies.removeMarked(enemyRemoved);
+
+        // 更新子弹
+        bullets.update(GameConfig.perTick(BulletPool.SPEED, tickCount));
+        removeInactiveBullets();
+        collideBulletsWithTerrain();
+
+        // 更新爆炸效果(原地压缩)
+        explosions.update(GameConfig.perTick(1, tickCount));
+    }
+
+    // 大世界里飞出完整模拟区域的子弹直接消失, 远处不需要检查子弹碰撞
+    private void removeInactiveBullets() {
+        if (region.coversWorld()) {
+            return;
+        }
+        int i = 0;
+        while (i < bullets.size()) {
+            if (region.levelOf(bullets.getX(i), bullets.getY(i)) != ActiveRegion.FULL) {
+                bullets.remove(i);
+                continue;
+            }
+            i++;
+        }
+    }
+
+    // 子弹打到墙上就消失, 砖墙同时被打掉, 钢墙不受影响
+    private void collideBulletsWithTerrain() {
+        if (terrain.isEmpty()) {
+            return;
+        }
+        int i = 0;
+        while (i < bullets.size()) {
+            int tile = terrain.firstSolid(bullets.getX(i), bullets.getY(i), BulletPool.SIZE, BulletPool.SIZE);
+            if (tile >= 0) {
+                int kind = terrain.destroy(tile) ? EffectLog.BRICK : EffectLog.STEEL;
+                effects.add(kind, bullets.getX(i) + BulletPool.SIZE / 2, bullets.getY(i) + BulletPool.SIZE / 2,
+                        bullets.getDirection(i));
+                bullets.remove(i);
+                continue;
+            }
+            i++;
+        }
+    }
+
+    void checkCollisions() {
+        GameEvents.CollisionPass event = new GameEvents.CollisionPass();
+        event.begin();
+        int enemyCount = enemies.size();
+        int bulletCount = bullets.size();
+        int enemiesHit = 0;
+        boolean playerHit = false;
+
+        // 用当前敌人位置重建网格
+        if (collisionMode != CollisionMode.BRUTE_FORCE) {
+            enemyGrid.clear();
+            for (int i = 0; i < enemies.size(); i++) {
+                enemyGrid.add(enemies.getX(i), enemies.getY(i), EnemyPool.SIZE, EnemyPool.SIZE);
+            }
+            enemyGrid.build();
+        }
+
+        // 先批量查出所有子弹的命中目标(不修改任何状态), 再按原来的顺序处理:
+        // 敌人先标记, 最后统一删除; 子弹直接从池中删除
+        int[] targets = resetBulletTargets();
+        int pairs = collectBulletHits();
+        for (int k = 0; k < pairs; k++) {
+            targets[hitPairs[2 * k]] = hitPairs[2 * k + 1];
+        }
+        boolean[] enemyRemoved = resetEnemyRemoved();
+
+        int i = 0;
+        while (i < bullets.size()) {
+            int target = targets[i];
+
+            // 玩家的子弹击中敌人
+            if (target >= 0) {
+                enemyRemoved[target] = true;
+                explosions.spawn(enemies.getX(target), enemies.getY(target));
+                effects.add(EffectLog.EXPLOSION, enemies.getX(target) + EnemyPool.SIZE / 2,
+                        enemies.getY(target) + EnemyPool.SIZE / 2, enemies.getDirection(target));
+                score += 10;
+                enemiesHit++;
+                removeBullet(i, targets); // 最后一颗子弹换到了i, 下一轮继续检查i
+                continue;
+            }
+
+            // 敌人的子弹击中玩家坦克(玩家复位后本tick不再检查)
+            if (target <= HIT_PLAYER) {
+                PlayerTank tank = players.get(HIT_PLAYER - target);
+                removeBullet(i, targets);
+                explosions.spawn(tank.getX(), tank.getY());
+                effects.add(EffectLog.EXPLOSION, tank.getX() + tank.width / 2, tank.getY() + tank.height / 2,
+                        tank.getDirection());
+                lives--;
+                playerHit = true;
+                tank.reset();
+                if (lives <= 0) {
+                    setState(GameState.GAME_OVER);
+                }
+                break;
+            }
+            i++;
+        }
+
+        // 检查玩家坦克与敌人坦克的碰撞(被击毁的敌人不再阻挡); 玩家之间可以重叠
+        for (int k = 0; k < players.size(); k++) {
+            PlayerTank tank = players.get(k);
+            int blocked = countBlockingEnemies(tank, enemyRemoved);
+            for (int n = 0; n < blocked; n++) {
+                tank.undoMove();
+            }
+            if (blocked > 0) {
+                tank.resolveTerrain(terrain);
+            }
+        }
+
+        enemies.removeMarked(enemyRemoved);
+
+        if (event.shouldCommit()) {
+            event.mode = collisionMode.name();
+            event.enemies = enemyCount;
+            event.bullets = bulletCount;
+            event.enemiesHit = enemiesHit;
+            event.playerHit = playerHit;
+            event.commit();
+        }
+    }
+
+    // 复用的敌人删除标记, 只在敌人数量超过容量时重新分配
+    private boolean[] resetEnemyRemoved() {
+        if (enemyRemoved.length < enemies.size()) {
+            enemyRemoved = new boolean[Math.max(enemies.size(), enemyRemoved.length * 2)];
+        } else {
+            Arrays.fill(enemyRemoved, 0, enemies.size(), false);
+        }
+        return enemyRemoved;
+    }
+
+    // 批量碰撞查询: 按子弹下标顺序把命中对(子弹下标, 目标)写入复用的 hitPairs, 返回命中对数
+    // 目标为玩家子弹击中的第一个敌人下标, 或敌人子弹击中第k个玩家时的 HIT_PLAYER - k; 不修改任何状态
+    int collectBulletHits() {
+        int pairs = 0;
+        for (int i = 0; i < bullets.size(); i++) {
+            int target;
+            if (bullets.isPlayerBullet(i)) {
+                target = findHitEnemy(i);
+            } else {
+                target = findHitPlayer(i);
+            }
+            if (target != NO_HIT) {
+                if (2 * pairs + 2 > hitPairs.length) {
+                    hitPairs = Arrays.copyOf(hitPairs, hitPairs.length * 2);
+                }
+                hitPairs[2 * pairs] = i;
+                hitPairs[2 * pairs + 1] = target;
+                pairs++;
+            }
+        }
+        return pairs;
+    }
+
+    // 复用的每颗子弹命中目标, 只在子弹数量超过容量时重新分配
+    private int[] resetBulletTargets() {
+        if (bulletTargets.length < bullets.size()) {
+            bulletTargets = new int[Math.max(bullets.size(), bulletTargets.length * 2)];
+        }
+        Arrays.fill(bulletTargets, 0, bullets.size(), NO_HIT);
+        return bulletTargets;
+    }
+
+    // 删除子弹, 命中目标跟着最后一颗子弹一起换到i
+    private void removeBullet(int i, int[] targets) {
+        targets[i] = targets[bullets.size() - 1];
+        bullets.remove(i);
+    }
+
+    // 刚发射的子弹(池中最后一颗)的炮口火光
+    private void addMuzzleEffect() {
+        int last = bullets.size() - 1;
+        int half = BulletPool.SIZE / 2;
+        effects.add(EffectLog.MUZZLE, bullets.getX(last) + half, bullets.getY(last) + half, bullets.getDirection(last));
+    }
+
+    private int findHitPlayer(int bullet) {
+        for (int k = 0; k < players.size(); k++) {
+            if (bullets.hits(bullet, players.get(k))) {
+                return HIT_PLAYER - k;
+            }
+        }
+        return NO_HIT;
+    }
+
+    // 返回子弹击中的第一个敌人下标, 没有击中返回-1
+    private int findHitEnemy(int bullet) {
+        switch (collisionMode) {
+            case BRUTE_FORCE:
+                return findHitEnemyBruteForce(bullet);
+            case SPATIAL_HASH:
+                return findHitEnemyGrid(bullet);
+            default:
+                int expected = findHitEnemyBruteForce(bullet);
+                int actual = findHitEnemyGrid(bullet);
+                if (expected != actual) {
+                    throw new IllegalStateException("网格碰撞结果不一致: 子弹(" + bullets.getX(bullet) + ", "
+                            + bullets.getY(bullet) + ") 暴力检测=" + expected + " 网格=" + actual);
+                }
+                return actual;
+        }
+    }
+
+    private int findHitEnemyBruteForce(int bullet) {
+        for (int i = 0; i < enemies.size(); i++) {
+            if (enemies.intersects(i, bullets.getX(bullet), bullets.getY(bullet), BulletPool.SIZE, BulletPool.SIZE)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int findHitEnemyGrid(int bullet) {
+        return enemyGrid.queryFirst(bullets.getX(bullet), bullets.getY(bullet), BulletPool.SIZE, BulletPool.SIZE);
+    }
+
+    // 返回与玩家坦克重叠的敌人数量
+    private int countBlockingEnemies(PlayerTank tank, boolean[] enemyRemoved) {
+        switch (collisionMode) {
+            case BRUTE_FORCE:
+                return countBlockingEnemiesBruteForce(tank, enemyRemoved);
+            case SPATIAL_HASH:
+                return countBlockingEnemiesGrid(tank, enemyRemoved);
+            default:
+                int expected = countBlockingEnemiesBruteForce(tank, enemyRemoved);
+                int actual = countBlockingEnemiesGrid(tank, enemyRemoved);
+                if (expected != actual) {
+                    throw new IllegalStateException("网格碰撞结果不一致: 玩家(" + tank.getX() + ", " + tank.getY()
+                            + ") 暴力检测=" + expected + " 网格=" + actual);
+                }
+                return actual;
+        }
+    }
+
+    private int countBlockingEnemiesBruteForce(PlayerTank tank, boolean[] enemyRemoved) {
+        int count = 0;
+        for (int i = 0; i < enemies.size(); i++) {
+            if (!enemyRemoved[i] && tank.intersects(enemies.getX(i), enemies.getY(i), EnemyPool.SIZE, EnemyPool.SIZE)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int countBlockingEnemiesGrid(PlayerTank tank, boolean[] enemyRemoved) {
+        if (nearbyEnemies.length < enemies.size()) {
+            nearbyEnemies = new int[enemies.size()];
+        }
+        int found = enemyGrid.query(tank.getX(), tank.getY(), tank.width, tank.height, nearbyEnemies);
+        int count = 0;
+        for (int k = 0; k < found; k++) {
+            if (!enemyRemoved[nearbyEnemies[k]]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int enemyBulletLimit() {
+        return maxEnemyBullets > 0 ? maxEnemyBullets : difficulty.getMaxBullets();
+    }
+
+    // 上限只计没有冻结的敌人: 大世界里留在远处的敌人不占名额, 玩家回去时它们还在原处
+    void spawnEnemy() {
+        int spawnRate = enemySpawnRate > 0 ? enemySpawnRate : difficulty.getSpawnRate();
+        if (tickCount - lastEnemySpawnTick > GameConfig.ticks(spawnRate)
+                && awakeEnemies() < maxEnemies) {
+            int count = Math.min(spawnBatch, maxEnemies - awakeEnemies());
+            for (int i = 0; i < count; i++) {
+                addEnemy();
+            }
+            lastEnemySpawnTick = tickCount;
+        }
+    }
+
+    // 基准测试用: 让下一次 spawnEnemy() 的生成计时立即到期
+    void makeSpawnDue() {
+        lastEnemySpawnTick = Long.MIN_VALUE / 2;
+    }
+
+    private int awakeEnemies() {
+        if (region.coversWorld()) {
+            return enemies.size();
+        }
+        int awake = 0;
+        for (int i = 0; i < enemies.size(); i++) {
+            if (region.levelOf(enemies.getX(i), enemies.getY(i)) != ActiveRegion.FROZEN) {
+                awake++;
+            }
+        }
+        return awake;
+    }
+
+    // 各模拟等级(ActiveRegion.FULL/CHEAP/FROZEN)的敌人数, 性能叠加层用
+    public int countEnemies(int level) {
+        int count = 0;
+        for (int i = 0; i < enemies.size(); i++) {
+            if (region.levelOf(enemies.getX(i), enemies.getY(i)) == level) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // 在完整模拟区域内的随机位置生成一个敌人, 避开墙; 几次都落在墙上时本次不生成
+    void addEnemy() {
+        int left = region.getLeft();
+        int top = region.getTop();
+        int width = region.getRight() - left;
+        int height = region.getBottom() - top;
+        int x;
+        int y;
+        int attempts = 0;
+        do {
+            if (attempts++ == SPAWN_ATTEMPTS) {
+                return;
+            }
+            x = left + random.nextInt(width - 40);
+            y = top + random.nextInt(height / 3); // 在上部1/3区域生成
+        } while (terrain.blocks(x, y, 40, 40));
+        enemies.spawn(x, y, nextEnemyId++, random.nextLong());
+
+        GameEvents.EnemySpawn event = new GameEvents.EnemySpawn();
+        if (event.shouldCommit()) {
+            event.x = x;
+            event.y = y;
+            event.enemies = enemies.size();
+            event.commit();
+        }
+    }
+
+    public PlayerTank getPlayer() {
+        return player;
+    }
+
+    // 所有玩家, 第0个就是 getPlayer()
+    public List<PlayerTank> getPlayers() {
+        return players;
+    }
+
+    public EnemyPool getEnemies() {
+        return enemies;
+    }
+
+    public BulletPool getBullets() {
+        return bullets;
+    }
+
+    public ExplosionPool getExplosions() {
+        return explosions;
+    }
+
+    public EffectLog getEffects() {
+        return effects;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public GameState getState() {
+        return gameState;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public long getPhaseNanos(TickPhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public TileMap getLevel() {
+        return level;
+    }
+
+    public FlowField getFlowField() {
+        return flowField;
+    }
+
+    public TileMap getTerrain() {
+        return terrain;
+    }
+
+    public long getGameSeed() {
+        return gameSeed;
+    }
+
+    // 存档: 按顺序写出一局游戏的全部状态, 包括各随机数的内部状态, 恢复后继续推进的结果与不中断时完全相同
+    // 流场、碰撞网格等每tick重建的数据不保存; 只在两个tick之间调用
+    public void writeState(ByteBuffer out) {
+        out.put((byte) difficulty.ordinal());
+        VarInt.put(out, VarInt.zigzag(score));
+        VarInt.put(out, VarInt.zigzag(lives));
+        VarInt.put(out, tickCount);
+        VarInt.put(out, lastEnemySpawnTick);
+        VarInt.put(out, nextEnemyId);
+        out.putLong(gameSeed);
+        out.putLong(seeds.getState());
+        out.putLong(random.getState());
+
+        VarInt.put(out, maxEnemies);
+        VarInt.put(out, maxEnemyBullets);
+        VarInt.put(out, spawnBatch);
+        VarInt.put(out, startingLives);
+        VarInt.put(out, enemySpawnRate);
+        VarInt.put(out, enemyFireRate);
+        VarInt.put(out, aiScheduler.getBudget());
+        VarInt.put(out, aiScheduler.getCursor());
+
+        // 地形 = 关卡 + 按顺序打掉的砖块
+        level.write(out);
+        VarInt.put(out, terrain.getChangeCount());
+        for (int i = 0; i < terrain.getChangeCount(); i++) {
+            VarInt.put(out, terrain.getChange(i));
+        }
+
+        VarInt.put(out, players.size());
+        for (int k = 0; k < players.size(); k++) {
+            PlayerTank tank = players.get(k);
+            VarInt.put(out, tank.getSpawnX());
+            VarInt.put(out, tank.getSpawnY());
+            tank.writeState(out);
+        }
+
+        VarInt.put(out, enemies.size());
+        for (int i = 0; i < enemies.size(); i++) {
+            enemies.writeState(i, out);
+        }
+
+        VarInt.put(out, bullets.size());
+        for (int i = 0; i < bullets.size(); i++) {
+            VarInt.put(out, VarInt.zigzag(bullets.getX(i)));
+            VarInt.put(out, VarInt.zigzag(bullets.getY(i)));
+            VarInt.put(out, VarInt.zigzag(bullets.getPrevX(i)));
+            VarInt.put(out, VarInt.zigzag(bullets.getPrevY(i)));
+            out.put((byte) bullets.getDirection(i).ordinal());
+            out.put((byte) (bullets.isPlayerBullet(i) ? 1 : 0));
+        }
+
+        VarInt.put(out, explosions.size());
+        for (int i = 0; i < explosions.size(); i++) {
+            VarInt.put(out, explosions.getX(i));
+            VarInt.put(out, explosions.getY(i));
+            VarInt.put(out, explosions.getRadius(i));
+        }
+    }
+
+    // writeState 最多写出的字节数
+    public int stateSize() {
+        return 128 + TileMap.writtenSize()
+                + 3 * terrain.getChangeCount()
+                + 48 * players.size()
+                + 64 * enemies.size()
+                + 24 * bullets.size()
+                + 16 * explosions.size();
+    }
+
+    // 恢复 writeState 写出的一局, 恢复后处于暂停状态
+    public void readState(ByteBuffer in) throws IOException {
+        Difficulty[] difficulties = Difficulty.values();
+        int difficultyIndex = in.get();
+        if (difficultyIndex < 0 || difficultyIndex >= difficulties.length) {
+            throw new IOException("存档数据错误: 难度 " + difficultyIndex);
+        }
+        difficulty = difficulties[difficultyIndex];
+        score = (int) VarInt.unzigzag(VarInt.get(in));
+        lives = (int) VarInt.unzigzag(VarInt.get(in));
+        tickCount = VarInt.get(in);
+        lastEnemySpawnTick = VarInt.get(in);
+        nextEnemyId = (int) VarInt.get(in);
+        gameSeed = in.getLong();
+        seeds.setState(in.getLong());
+        random = new GameRandom(gameSeed);
+        random.setState(in.getLong());
+
+        maxEnemies = (int) VarInt.get(in);
+        maxEnemyBullets = (int) VarInt.get(in);
+        spawnBatch = (int) VarInt.get(in);
+        startingLives = (int) VarInt.get(in);
+        enemySpawnRate = (int) VarInt.get(in);
+        enemyFireRate = (int) VarInt.get(in);
+        aiScheduler.reset();
+        aiScheduler.setBudget((int) VarInt.get(in));
+        aiScheduler.setCursor((int) VarInt.get(in));
+
+        level = TileMap.read(in);
+        terrain = level.copy();
+        int changes = (int) VarInt.get(in);
+        for (int i = 0; i < changes; i++) {
+            terrain.destroy((int) VarInt.get(in));
+        }
+
+        playerCount = (int) VarInt.get(in);
+        players.clear();
+        for (int k = 0; k < playerCount; k++) {
+            PlayerTank tank = new PlayerTank((int) VarInt.get(in), (int) VarInt.get(in));
+            tank.readState(in);
+            players.add(tank);
+        }
+        player = players.get(0);
+        region.update(players);
+        flowField = new FlowField();
+        flowField.setBounds(region.getLeft(), region.getTop(), region.getRight(), region.getBottom());
+        flowField.update(players, terrain);
+
+        int enemyCount = (int) VarInt.get(in);
+        enemies = new EnemyPool(Math.max(64, enemyCount));
+        for (int i = 0; i < enemyCount; i++) {
+            enemies.readState(in);
+        }
+
+        int bulletCount = (int) VarInt.get(in);
+        bullets = new BulletPool(Math.max(256, bulletCount));
+        for (int i = 0; i < bulletCount; i++) {
+            int x = (int) VarInt.unzigzag(VarInt.get(in));
+            int y = (int) VarInt.unzigzag(VarInt.get(in));
+            int px = (int) VarInt.unzigzag(VarInt.get(in));
+            int py = (int) VarInt.unzigzag(VarInt.get(in));
+            Direction dir = Direction.values()[in.get()];
+            bullets.spawn(x, y, dir, in.get() != 0);
+            bullets.setPrevious(i, px, py);
+        }
+
+        int explosionCount = (int) VarInt.get(in);
+        explosions = new ExplosionPool(Math.max(16, explosionCount));
+        effects = new EffectLog(EFFECT_CAPACITY);
+        for (int i = 0; i < explosionCount; i++) {
+            int e = explosions.spawn((int) VarInt.get(in), (int) VarInt.get(in));
+            explosions.setRadius(e, (int) VarInt.get(in));
+        }
+
+        setState(GameState.PAUSED);
+    }
+
+    // 整个世界状态的校验和, 回放时用来确认与录制时一致
+    public long checksum() {
+        long h = 17;
+        h = mix(h, tickCount);
+        h = mix(h, score);
+        h = mix(h, lives);
+        h = mix(h, gameState.ordinal());
+        h = mix(h, player.getX());
+        h = mix(h, player.getY());
+        h = mix(h, player.getDirection().ordinal());
+        for (int k = 1; k < players.size(); k++) {
+            PlayerTank other = players.get(k);
+            h = mix(h, other.getX());
+            h = mix(h, other.getY());
+            h = mix(h, other.getDirection().ordinal());
+        }
+        for (int i = 0; i < enemies.size(); i++) {
+            h = mix(h, enemies.getX(i));
+            h = mix(h, enemies.getY(i));
+            h = mix(h, enemies.getDirection(i).ordinal());
+        }
+        for (int i = 0; i < bullets.size(); i++) {
+            h = mix(h, bullets.getX(i));
+            h = mix(h, bullets.getY(i));
+            h = mix(h, bullets.getDirection(i).ordinal());
+            h = mix(h, bullets.isPlayerBullet(i) ? 1 : 0);
+        }
+        for (int i = 0; i < explosions.size(); i++) {
+            h = mix(h, explosions.getX(i));
+            h = mix(h, explosions.getY(i));
+            h = mix(h, explosions.getRadius(i));
+        }
+        h = mix(h, terrain.checksum(17));
+        return h;
+    }
+
+    private static long mix(long h, long value) {
+        h ^= value;
+        h *= 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+}
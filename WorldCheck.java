@@ -0,0 +1,113 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+// 大世界检查 - 无界面运行一个可以滚动的大世界: 玩家沿固定路线穿过世界, 每隔几个tick画一帧到离屏图像
+// 报告各模拟等级的敌人数、tick耗时、绘制耗时和地形区块缓存的载入次数与内存; 缓存超出预算或游戏提前结束时以状态1退出
+// 画面和游戏中一样经过渲染帧交给绘制端(这里在同一线程), 最后检查绘制端按增量拼出的地形与世界的地形相同
+// 用法: java -Dtank.worldSize=12800x9600 WorldCheck [敌人上限] [tick数]
+class WorldCheck {
+    private static final int FRAME_INTERVAL = 4;
+
+    // 路线: 每段斜着按住两个方向键若干tick(斜走碰到墙时会沿墙滑动, 不会卡住), 终点离出生点很远
+    private static final int[] ROUTE = {
+            World.INPUT_RIGHT | World.INPUT_UP, World.INPUT_RIGHT | World.INPUT_DOWN,
+            World.INPUT_LEFT | World.INPUT_DOWN, World.INPUT_LEFT | World.INPUT_DOWN,
+    };
+    private static final int LEG_TICKS = 1200;
+
+    public static void main(String[] args) throws IOException {
+        int enemies = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : ROUTE.length * LEG_TICKS;
+        if (World.WIDTH == World.VIEW_WIDTH && World.HEIGHT == World.VIEW_HEIGHT) {
+            System.err.println("世界只有一屏大, 用 -Dtank.worldSize=<宽>x<高> 指定大世界");
+        }
+
+        // 同样的种子生成同样的地形
+        TileMap level = TileMap.load(GameConfig.LEVEL);
+        if (TileMap.load(GameConfig.LEVEL).checksum(17) != level.checksum(17)) {
+            fail("两次生成的地形不同");
+        }
+
+        World world = new World(42);
+        world.setLevel(level);
+        world.setMaxEnemies(enemies);
+        world.setMaxEnemyBullets(1); // 玩家被击中会回到出生点, 只留一颗敌人子弹, 让路线走得完
+        world.setSpawnBatch(Math.max(1, enemies / 20));
+        world.setStartingLives(Integer.MAX_VALUE); // 测的是引擎, 玩家不会死
+        world.setDifficulty(Difficulty.HARD);
+        world.start();
+
+        TripleBuffer<RenderFrame> frames = new TripleBuffer<>(new RenderFrame(), new RenderFrame(), new RenderFrame());
+        FramePublisher publisher = new FramePublisher(frames);
+        RenderView view = new RenderView(frames);
+        WorldRenderer renderer = new WorldRenderer();
+        BufferedImage frame = new BufferedImage(World.VIEW_WIDTH, World.VIEW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        SampleRing tickTimes = new SampleRing(ticks);
+        SampleRing paintTimes = new SampleRing(ticks / FRAME_INTERVAL + 1);
+        long maxCacheBytes = 0;
+        int[] maxLevels = new int[3];
+
+        for (int i = 0; i < ticks; i++) {
+            int inputs = ROUTE[i / LEG_TICKS % ROUTE.length] | (i % 10 == 0 ? World.INPUT_FIRE : 0);
+            long start = System.nanoTime();
+            world.step(inputs);
+            tickTimes.add(System.nanoTime() - start);
+
+            if (i % FRAME_INTERVAL == 0) {
+                Graphics2D g = frame.createGraphics();
+                try {
+                    start = System.nanoTime();
+                    publisher.publish(world, start, false, null);
+                    view.refresh(start);
+                    renderer.draw(g, view, 1.0);
+                    paintTimes.add(System.nanoTime() - start);
+                } finally {
+                    g.dispose();
+                }
+                maxCacheBytes = Math.max(maxCacheBytes, renderer.getTerrainCache().getBytes());
+            }
+            if (i % 500 == 0) {
+                for (int lod = 0; lod < maxLevels.length; lod++) {
+                    maxLevels[lod] = Math.max(maxLevels[lod], world.countEnemies(lod));
+                }
+            }
+        }
+        tickTimes.sortSamples();
+        paintTimes.sortSamples();
+
+        TerrainChunkCache cache = renderer.getTerrainCache();
+        long budget = GameConfig.CHUNK_CACHE_MB * 1024L * 1024L;
+        System.out.printf("世界 %dx%d (%dx%d 区块), 关卡在 (%d, %d), 玩家终点 (%d, %d)%n", World.WIDTH, World.HEIGHT,
+                TileMap.CHUNK_COLS, TileMap.CHUNK_ROWS, TileMap.LEVEL_COL * TileMap.TILE,
+                TileMap.LEVEL_ROW * TileMap.TILE, world.getPlayer().getX(), world.getPlayer().getY());
+        System.out.printf("敌人 %d: 完整 %d, 简化 %d, 冻结 %d (途中最多 %d/%d/%d)%n", world.getEnemies().size(),
+                world.countEnemies(ActiveRegion.FULL), world.countEnemies(ActiveRegion.CHEAP),
+                world.countEnemies(ActiveRegion.FROZEN), maxLevels[0], maxLevels[1], maxLevels[2]);
+        System.out.printf("tick耗时: p50 %.2f ms, p99 %.2f ms, max %.2f ms; 流场重算 %d 次%n",
+                tickTimes.percentile(50) / 1e6, tickTimes.percentile(99) / 1e6, tickTimes.max() / 1e6,
+                world.getFlowField().getRebuildCount());
+        System.out.printf("绘制耗时: p50 %.2f ms, p99 %.2f ms%n", paintTimes.percentile(50) / 1e6,
+                paintTimes.percentile(99) / 1e6);
+        System.out.printf("地形区块: 载入 %d 次, 现缓存 %d 块, 最多 %.1f MB / 预算 %d MB%n", cache.getLoads(),
+                cache.getCachedChunks(), maxCacheBytes / 1048576.0, GameConfig.CHUNK_CACHE_MB);
+
+        if (world.getState() != GameState.PLAYING) {
+            fail("游戏提前结束 (" + world.getState() + ")");
+        }
+        publisher.publish(world, System.nanoTime(), false, null);
+        view.refresh(System.nanoTime());
+        if (view.getTerrain().checksum(17) != world.getTerrain().checksum(17)) {
+            fail("绘制端的地形与世界不同");
+        }
+        // 一屏最多压到 2x2 个区块, 预算至少要装得下
+        if (maxCacheBytes > Math.max(budget, 4L * 4 * TileMap.CHUNK * TileMap.CHUNK)) {
+            fail("区块缓存超出预算");
+        }
+    }
+
+    private static void fail(String message) {
+        System.err.println("检查失败: " + message);
+        System.exit(1);
+    }
+}
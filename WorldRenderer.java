@@ -0,0 +1,133 @@
+import java.awt.*;
+
+// 世界绘制 - 把模拟线程发布的状态(RenderView)画到屏幕上, 实体本身不依赖 AWT
+// 镜头跟随玩家, 只画屏幕内的地形区块和实体
+class WorldRenderer {
+    private static final Color BRICK = new Color(170, 80, 30);
+    private static final Color MORTAR = new Color(90, 40, 15);
+    private static final Color STEEL = new Color(150, 150, 160);
+    private static final Color STEEL_LIGHT = new Color(210, 210, 220);
+
+    // 地形按区块缓存成图像, 超出内存预算时淘汰最久没画过的区块
+    private final TerrainChunkCache terrainCache = new TerrainChunkCache(GameConfig.CHUNK_CACHE_MB * 1024L * 1024L);
+    private final Camera camera = new Camera();
+
+    // 爆炸、开火和碎片的粒子, 由 World 的特效事件驱动
+    private final ParticleSystem particles = new ParticleSystem(GameConfig.PARTICLES);
+
+    // alpha: 在上一个tick和当前tick位置之间插值的比例
+    public void draw(Graphics g, RenderView view, double alpha) {
+        PlayerTank player = view.getPlayer();
+        if (player == null) {
+            return;
+        }
+
+        camera.follow(view, alpha);
+        g.translate(-camera.getX(), -camera.getY());
+        try {
+            drawTerrain(g, view.getTerrain());
+
+            drawTank(g, player, alpha);
+
+            drawEnemies(g, view.getEnemies(), alpha);
+            drawBullets(g, view.getBullets(), alpha);
+            drawExplosions(g, view.getExplosions());
+
+            particles.advance(view.getEffects(), view.getTickCount());
+            particles.draw(g, camera, alpha);
+        } finally {
+            g.translate(camera.getX(), camera.getY());
+        }
+    }
+
+    private void drawTerrain(Graphics g, TileMap terrain) {
+        if (terrain.isEmpty() && terrain.getChangeCount() == 0) {
+            return;
+        }
+        terrainCache.draw(g, terrain, camera);
+    }
+
+    public TerrainChunkCache getTerrainCache() {
+        return terrainCache;
+    }
+
+    public ParticleSystem getParticles() {
+        return particles;
+    }
+
+    static void paintTile(Graphics g, int tile, int x, int y) {
+        int size = TileMap.TILE;
+        if (tile == TileMap.BRICK) {
+            // 砖墙: 两层错缝的砖
+            g.setColor(BRICK);
+            g.fillRect(x, y, size, size);
+            g.setColor(MORTAR);
+            g.drawLine(x, y + size / 2, x + size - 1, y + size / 2);
+            g.drawLine(x, y + size - 1, x + size - 1, y + size - 1);
+            g.drawLine(x + size / 2, y, x + size / 2, y + size / 2);
+            g.drawLine(x, y + size / 2, x, y + size - 1);
+        } else if (tile == TileMap.STEEL) {
+            // 钢墙: 浅色边框加中间的方块
+            g.setColor(STEEL);
+            g.fillRect(x, y, size, size);
+            g.setColor(STEEL_LIGHT);
+            g.fillRect(x + size / 4, y + size / 4, size / 2, size / 2);
+            g.drawRect(x, y, size - 1, size - 1);
+        }
+    }
+
+    // 精灵四周有10像素留白(履带和炮管), 完全在屏幕外的不画
+    private void drawTank(Graphics g, Tank tank, double alpha) {
+        int x = tank.renderX(alpha);
+        int y = tank.renderY(alpha);
+        if (camera.sees(x - 10, y - 10, 60, 60)) {
+            TankSprites.draw(g, tank.isPlayerBullet(), tank.getDirection(), x, y);
+        }
+    }
+
+    private void drawEnemies(Graphics g, EnemyPool enemies, double alpha) {
+        for (int i = 0; i < enemies.size(); i++) {
+            int x = enemies.renderX(i, alpha);
+            int y = enemies.renderY(i, alpha);
+            if (camera.sees(x - 10, y - 10, 60, 60)) {
+                TankSprites.draw(g, false, enemies.getDirection(i), x, y);
+            }
+        }
+    }
+
+    // 按阵营分批绘制子弹, 每批只设置一次颜色
+    private void drawBullets(Graphics g, BulletPool bullets, double alpha) {
+        for (int f = BulletPool.PLAYER; f <= BulletPool.ENEMY; f++) {
+            if (bullets.count(f) == 0) continue;
+            g.setColor(f == BulletPool.PLAYER ? Color.CYAN : Color.YELLOW);
+            boolean player = f == BulletPool.PLAYER;
+            for (int i = 0; i < bullets.size(); i++) {
+                if (bullets.isPlayerBullet(i) == player) {
+                    int x = bullets.renderX(i, alpha);
+                    int y = bullets.renderY(i, alpha);
+                    if (camera.sees(x, y, BulletPool.SIZE, BulletPool.SIZE)) {
+                        g.fillOval(x, y, BulletPool.SIZE, BulletPool.SIZE);
+                    }
+                }
+            }
+        }
+    }
+
+    private void drawExplosions(Graphics g, ExplosionPool explosions) {
+        for (int i = 0; i < explosions.size(); i++) {
+            int x = explosions.getX(i);
+            int y = explosions.getY(i);
+            int radius = explosions.getRadius(i);
+            if (!camera.sees(x + 20 - radius / 2, y + 20 - radius / 2, radius, radius)) {
+                continue;
+            }
+
+            // 绘制爆炸效果
+            g.setColor(Color.ORANGE);
+            g.fillOval(x + 20 - radius/2, y + 20 - radius/2, radius, radius);
+
+            g.setColor(Color.YELLOW);
+            g.fillOval(x + 20 - radius/4, y + 20 - radius/4, radius/2, radius/2);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import tankwar.bench.TickTargets;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// 基准测试用的游戏状态 - 按指定数量摆放敌人和子弹
+// 每次操作后补足被消灭或飞出场地的实体, 让整个测量期间规模保持稳定
+public class BenchTargets implements TickTargets {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private World world;
+    private Random placement;
+    private int enemyTarget;
+    private int bulletTarget;
+    private int nextEnemyId;
+
+    // enemyUpdate() 让所有敌人都完整推进一个tick
+    private byte[] steps = new byte[0];
+
+    @Override
+    public void setUp(int enemies, int bullets, long seed, String updateMode) {
+        world = new World(seed);
+        world.setUpdateMode(UpdateMode.parse(updateMode));
+        world.setMaxEnemies(enemies + world.getSpawnBatch()); // 规模已满时 spawnEnemy() 仍然会生成
+        world.start();
+        placement = new Random(seed);
+        enemyTarget = enemies;
+        bulletTarget = bullets;
+        replenish();
+    }
+
+    @Override
+    public void setUpApart(int enemies, int bullets, long seed, String collisionMode) {
+        world = new World(seed);
+        world.setCollisionMode(CollisionMode.parse(collisionMode));
+        world.start();
+        Random random = new Random(seed);
+
+        for (int i = 0; i < enemies; i++) {
+            int x = random.nextInt(World.WIDTH - 40);
+            int y = random.nextInt(200 - 40);
+            world.getEnemies().spawn(x, y, nextEnemyId++, random.nextLong());
+        }
+        for (int i = 0; i < bullets; i++) {
+            int x = random.nextInt(World.WIDTH - BulletPool.SIZE);
+            int y = 300 + random.nextInt(140);
+            world.getBullets().spawn(x, y, DIRECTIONS[random.nextInt(DIRECTIONS.length)], random.nextBoolean());
+        }
+
+        // 不补充实体, 摆放本身保证不会有实体被移除
+        placement = null;
+        enemyTarget = 0;
+        bulletTarget = 0;
+    }
+
+    private void replenish() {
+        EnemyPool enemies = world.getEnemies();
+        while (enemies.size() < enemyTarget) {
+            int x = placement.nextInt(World.WIDTH - 40);
+            int y = placement.nextInt(World.HEIGHT - 40);
+            enemies.spawn(x, y, nextEnemyId++, placement.nextLong());
+        }
+
+        BulletPool bullets = world.getBullets();
+        while (bullets.size() < bulletTarget) {
+            int x = placement.nextInt(World.WIDTH);
+            int y = placement.nextInt(World.HEIGHT);
+            bullets.spawn(x, y, DIRECTIONS[placement.nextInt(DIRECTIONS.length)], placement.nextBoolean());
+        }
+    }
+
+    @Override
+    public void update() {
+        world.update();
+        replenish();
+    }
+
+    @Override
+    public void checkCollisions() {
+        world.checkCollisions();
+        replenish();
+    }
+
+    @Override
+    public void spawnEnemy() {
+        world.makeSpawnDue();
+        world.spawnEnemy();
+        EnemyPool enemies = world.getEnemies();
+        while (enemies.size() > enemyTarget) {
+            enemies.removeLast();
+        }
+    }
+
+    @Override
+    public void enemyUpdate() {
+        EnemyPool enemies = world.getEnemies();
+        if (steps.length < enemies.size()) {
+            steps = new byte[enemies.size()];
+            Arrays.fill(steps, (byte) 1);
+        }
+        // 测的是AI本身的开销, 到期的决策全部执行, 不经过 AiScheduler 的预算
+        enemies.advanceTimers(0, enemies.size(), steps);
+        for (int i = 0; i < enemies.size(); i++) {
+            if (enemies.isDue(i, 1)) {
+                enemies.decide(i, 1, world.getFlowField());
+            }
+        }
+        enemies.move(0, enemies.size(), steps, world.getTickCount());
+    }
+
+    @Override
+    public void rebuildFlowField() {
+        PlayerTank player = world.getPlayer();
+        world.getFlowField().rebuild(FlowField.cellIndex(player.getX(), player.getY()), world.getTerrain());
+    }
+
+    @Override
+    public void followPlayer() {
+        EnemyPool enemies = world.getEnemies();
+        for (int i = 0; i < enemies.size(); i++) {
+            enemies.followPlayer(i, world.getFlowField());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package tankwar.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+
+// 运行 CollisionAllocationBenchmark 并检查碰撞检测每次调用分配的字节数, 超过阈值时以状态1退出
+// gradle :benchmarks:allocationCheck
+public final class AllocationCheck {
+    // JMH 自身的后台分配会摊到每次操作上(操作越慢越多), 真正的分配至少是一个对象(16字节)
+    private static final double MAX_BYTES_PER_OP = 8.0;
+
+    private AllocationCheck() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        // 暴力检测在10000个实体时一次要几百毫秒, JMH 自身的后台分配摊到每次操作上会超过阈值, 只测到1000
+        boolean failed = check(run("grid", "100", "1000", "10000"));
+        failed |= check(run("brute", "100", "1000"));
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    private static Collection<RunResult> run(String collisionMode, String... entities) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CollisionAllocationBenchmark.class.getName())
+                .param("collisionMode", collisionMode)
+                .param("entities", entities)
+                .addProfiler(GCProfiler.class)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(3)
+                .measurementTime(TimeValue.seconds(1))
+                .build();
+        return new Runner(options).run();
+    }
+
+    private static boolean check(Collection<RunResult> results) {
+        boolean failed = false;
+        for (RunResult run : results) {
+            Result<?> allocated = run.getSecondaryResults().get("gc.alloc.rate.norm");
+            String params = run.getParams().getParam("collisionMode") + ", " + run.getParams().getParam("entities");
+            if (allocated == null) {
+                System.out.println("没有分配数据(JVM不支持?): " + params);
+                failed = true;
+            } else if (allocated.getScore() > MAX_BYTES_PER_OP) {
+                System.out.printf("checkCollisions 有分配: %s -> %.1f B/op%n", params, allocated.getScore());
+                failed = true;
+            } else {
+                System.out.printf("checkCollisions 无分配: %s -> %.3f B/op%n", params, allocated.getScore());
+            }
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,35 @@
+package tankwar.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 碰撞检测阶段的内存分配: 实体互不接触, 每次调用都走完整的网格重建和批量查询, 但不改变状态
+// 配合 -prof gc 看 gc.alloc.rate.norm, 应当为0; AllocationCheck 会自动检查
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionAllocationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int entities;
+
+    @Param({"grid", "brute"})
+    public String collisionMode;
+
+    private TickTargets targets;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        targets = TickTargets.create();
+        targets.setUpApart(entities, entities, 42, collisionMode);
+    }
+
+    @Benchmark
+    public void checkCollisions() {
+        targets.checkCollisions();
+    }
+}
@@ -0,0 +1,41 @@
+package tankwar.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 敌人AI的耗时: 整批敌人的AI和移动、followPlayer(), 以及流场重算
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnemyAiBenchmark {
+
+    @Param({"5", "100", "1000", "10000"})
+    public int entities;
+
+    private TickTargets targets;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        targets = TickTargets.create();
+        targets.setUp(entities, 0, 42, "sequential");
+    }
+
+    @Benchmark
+    public void enemyUpdate() {
+        targets.enemyUpdate();
+    }
+
+    @Benchmark
+    public void followPlayer() {
+        targets.followPlayer();
+    }
+
+    @Benchmark
+    public void rebuildFlowField() {
+        targets.rebuildFlowField();
+    }
+}
@@ -0,0 +1,49 @@
+package tankwar.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 一个tick中各阶段的耗时, 敌人和子弹数量相同, 由 entities 参数决定
+// update 和 checkCollisions 在测量内补足被移除的实体, 规模才能在整轮测量中保持不变. 逐次调用的 @Setup(Level.Invocation)
+// 对这么短的方法会失真, 按轮补足又撑不过一轮(子弹几百个tick就全部飞出场地), 所以把补足算在里面:
+// update 平均每次补足约 entities / 580 个敌人和子弹, 约占耗时的 4% ~ 13%(entities=100 时最高), 修改前后对比时两边都包含
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+
+    @Param({"5", "100", "1000", "10000"})
+    public int entities;
+
+    // 敌人更新方式, 比较并行效果时用 -p updateMode=sequential,parallel
+    @Param({"sequential"})
+    public String updateMode;
+
+    private TickTargets targets;
+
+    // 每轮重新摆放, 避免敌人在一轮测量中逐渐聚到一起
+    @Setup(Level.Iteration)
+    public void setUp() {
+        targets = TickTargets.create();
+        targets.setUp(entities, entities, 42, updateMode);
+    }
+
+    @Benchmark
+    public void update() {
+        targets.update();
+    }
+
+    @Benchmark
+    public void checkCollisions() {
+        targets.checkCollisions();
+    }
+
+    @Benchmark
+    public void spawnEnemy() {
+        targets.spawnEnemy();
+    }
+}
@@ -0,0 +1,41 @@
+package tankwar.bench;
+
+// 基准测试的调用目标
+// 游戏代码在默认包中, 具名包里的基准类无法直接引用它们(JMH 又要求基准类不能在默认包),
+// 所以由默认包中的 BenchTargets 实现本接口, 运行时按类名加载一次
+public interface TickTargets {
+
+    // 摆放指定数量的敌人和子弹, seed 决定摆放位置; updateMode 为 sequential 或 parallel
+    void setUp(int enemies, int bullets, long seed, String updateMode);
+
+    // 敌人只放在场地上部, 子弹只放在中部, 互相以及与玩家都不接触;
+    // 之后 checkCollisions() 不会改变任何状态, 用于测量碰撞检测本身的分配. collisionMode 为 grid 或 brute
+    void setUpApart(int enemies, int bullets, long seed, String collisionMode);
+
+    // World.update() 一次, 然后补足被移除的实体(计入测量, 见 TickBenchmark)
+    void update();
+
+    // World.checkCollisions() 一次, 然后补足被消灭的实体(计入测量)
+    void checkCollisions();
+
+    // 让生成计时到期后调用 World.spawnEnemy() 一次(计时判断、按批生成、避开墙的落点), 再移除新生成的敌人, 规模不变
+    void spawnEnemy();
+
+    // 所有敌人完整推进一个tick的AI计时、决策和移动(EnemyUpdater 中逐个敌人的部分: EnemyPool.decide 和 move),
+    // 到期的决策全部执行, 不经过 AiScheduler 的预算
+    void enemyUpdate();
+
+    // 重算一次敌人寻路流场(与敌人数量无关)
+    void rebuildFlowField();
+
+    // 对所有敌人调用 EnemyPool.followPlayer()
+    void followPlayer();
+
+    static TickTargets create() {
+        try {
+            return (TickTargets) Class.forName("BenchTargets").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("找不到 BenchTargets", e);
+        }
+    }
+}